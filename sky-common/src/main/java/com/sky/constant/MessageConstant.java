@@ -16,6 +16,7 @@ public class MessageConstant {
     public static final String CATEGORY_BE_RELATED_BY_SETMEAL = "当前分类关联了套餐,不能删除";
     public static final String CATEGORY_BE_RELATED_BY_DISH = "当前分类关联了菜品,不能删除";
     public static final String SHOPPING_CART_IS_NULL = "购物车数据为空，不能下单";
+    public static final String PRODUCT_NOT_FOUND = "商品不存在";
     public static final String ADDRESS_BOOK_IS_NULL = "用户地址为空，不能下单";
     public static final String LOGIN_FAILED = "登录失败";
     public static final String UPLOAD_FAILED = "文件上传失败";
@@ -26,5 +27,13 @@ public class MessageConstant {
     public static final String DISH_BE_RELATED_BY_SETMEAL = "当前菜品关联了套餐,不能删除";
     public static final String ORDER_STATUS_ERROR = "订单状态错误";
     public static final String ORDER_NOT_FOUND = "订单不存在";
+    public static final String ORDER_CURSOR_ERROR = "分页游标无效";
+    public static final String REPORT_DATE_RANGE_ERROR = "报表日期范围错误";
+    public static final String REPORT_EXPORT_JOB_NOT_FOUND = "导出任务不存在或已过期";
+    public static final String REPORT_EXPORT_NOT_FINISHED = "报表尚未生成完成";
+    public static final String REPORT_EXPORT_BUSY = "导出任务过多，请稍后再试";
+    public static final String REPORT_DATE_RANGE_TOO_LONG = "报表日期范围不能超过一年";
+    public static final String REPORT_EXPORT_FILE_EXPIRED = "报表文件已过期，请重新导出";
+    public static final String REPORT_EXPORT_FAILED = "报表生成失败，请重新导出";
 
 }
@@ -0,0 +1,24 @@
+package com.sky.result;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 封装游标分页查询结果
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+public class CursorPageResult extends PageResult {
+
+    private String nextCursor; //下一页游标，没有更多数据时为null
+
+    public CursorPageResult(long total, List records, String nextCursor) {
+        super(total, records);
+        this.nextCursor = nextCursor;
+    }
+
+}
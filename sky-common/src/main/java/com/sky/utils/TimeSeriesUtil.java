@@ -0,0 +1,69 @@
+package com.sky.utils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按天统计的时间序列工具类：生成日期序列、补全缺失日期、计算累计值
+ */
+public class TimeSeriesUtil {
+
+    /**
+     * 获取从begin到end（包含两端）的每天日期
+     *
+     * @param begin 开始日期
+     * @param end   结束日期
+     * @return
+     */
+    public static List<LocalDate> dateRange(LocalDate begin, LocalDate end) {
+        List<LocalDate> dateList = new ArrayList<>();
+
+        LocalDate date = begin;
+        while (!date.isAfter(end)) {
+            dateList.add(date);
+            date = date.plusDays(1);
+        }
+
+        return dateList;
+    }
+
+    /**
+     * 按日期序列取出每天的值，分组查询中不存在的日期用默认值补全
+     *
+     * @param dateList     日期序列
+     * @param values       分组查询的结果（日期 -> 值）
+     * @param defaultValue 缺失日期的默认值
+     * @return 与dateList一一对应的值
+     */
+    public static <T> List<T> fill(List<LocalDate> dateList, Map<LocalDate, T> values, T defaultValue) {
+        List<T> result = new ArrayList<>(dateList.size());
+
+        for (LocalDate date : dateList) {
+            T value = values.get(date);
+            result.add(value == null ? defaultValue : value);
+        }
+
+        return result;
+    }
+
+    /**
+     * 在基数之上对每天的增量做前缀和，得到每天的累计值
+     *
+     * @param base       起始日期之前的累计值
+     * @param increments 每天的增量
+     * @return 每天（含当天）的累计值
+     */
+    public static List<Integer> cumulative(int base, List<Integer> increments) {
+        List<Integer> result = new ArrayList<>(increments.size());
+
+        int total = base;
+        for (Integer increment : increments) {
+            total += increment == null ? 0 : increment;
+            result.add(total);
+        }
+
+        return result;
+    }
+}
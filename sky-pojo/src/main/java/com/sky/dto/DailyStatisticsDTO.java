@@ -0,0 +1,33 @@
+package com.sky.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * 按天分组的统计数据（GROUP BY DATE(...) 的查询结果）
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class DailyStatisticsDTO implements Serializable {
+    //日期
+    private LocalDate date;
+
+    //营业额
+    private Double turnover;
+
+    //订单数
+    private Integer orderCount;
+
+    //有效订单数
+    private Integer validOrderCount;
+
+    //新增用户数
+    private Integer newUsers;
+}
@@ -27,4 +27,15 @@ public class OrdersPageQueryDTO implements Serializable {
 
     private Long userId;
 
+    //游标分页：第一页传空字符串，之后传上一页返回的nextCursor；不传时按页码分页
+    private String cursor;
+
+    //游标分页时是否统计总记录数，不统计时total返回-1
+    private Boolean withTotal;
+
+    //由cursor解析出的上一页最后一条订单的下单时间和id
+    private LocalDateTime cursorOrderTime;
+
+    private Long cursorId;
+
 }
@@ -0,0 +1,42 @@
+package com.sky.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 每日营业数据汇总
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BusinessStatistics implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    //统计日期（按下单时间/注册时间归属）
+    private LocalDate date;
+
+    //营业额：当日已完成订单的总金额
+    private Double turnover;
+
+    //有效订单数：当日已完成订单的数量
+    private Integer validOrderCount;
+
+    //总订单数
+    private Integer orderCount;
+
+    //新增用户数
+    private Integer newUsers;
+
+    //平均客单价：营业额 / 有效订单数
+    private Double unitPrice;
+
+    private LocalDateTime updateTime;
+}
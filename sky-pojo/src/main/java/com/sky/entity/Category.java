@@ -15,6 +15,12 @@ public class Category implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
+    /**
+     * 分类类型 1菜品分类 2套餐分类
+     */
+    public static final Integer DISH_TYPE = 1;
+    public static final Integer SETMEAL_TYPE = 2;
+
     private Long id;
 
     //类型: 1菜品分类 2套餐分类
@@ -0,0 +1,56 @@
+package com.sky.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 订单事件（开启发件箱时同时保存在order_event_outbox表）
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderEvent implements Serializable {
+
+    /**
+     * 事件类型 1已下单 2已支付 3催单 4已取消
+     */
+    public static final Integer SUBMITTED = 1;
+    public static final Integer PAID = 2;
+    public static final Integer REMINDER = 3;
+    public static final Integer CANCELLED = 4;
+
+    private static final long serialVersionUID = 1L;
+
+    private Long id;
+
+    //事件类型
+    private Integer type;
+
+    //订单id
+    private Long orderId;
+
+    //订单号
+    private String orderNumber;
+
+    //下单用户id
+    private Long userId;
+
+    //事件发生时间
+    private LocalDateTime createTime;
+
+
+    public static OrderEvent of(Integer type, Orders orders) {
+        return OrderEvent.builder()
+                .type(type)
+                .orderId(orders.getId())
+                .orderNumber(orders.getNumber())
+                .userId(orders.getUserId())
+                .build();
+    }
+}
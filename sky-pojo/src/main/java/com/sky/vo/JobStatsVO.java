@@ -0,0 +1,43 @@
+package com.sky.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 定时任务执行统计（当前节点）
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobStatsVO implements Serializable {
+
+    //任务名称
+    private String job;
+
+    //本节点执行次数
+    private long runs;
+
+    //其他节点持有租约而跳过的次数
+    private long skipped;
+
+    //执行失败次数
+    private long failures;
+
+    //最近一次耗时（毫秒）
+    private long lastDurationMillis;
+
+    //最长耗时（毫秒）
+    private long maxDurationMillis;
+
+    //累计耗时（毫秒）
+    private long totalDurationMillis;
+
+    //最近一次完成时间
+    private LocalDateTime lastFinishTime;
+}
@@ -0,0 +1,35 @@
+package com.sky.vo;
+
+import com.sky.entity.Setmeal;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MenuCategoryVO implements Serializable {
+
+    //分类id
+    private Long id;
+
+    //类型: 1菜品分类 2套餐分类
+    private Integer type;
+
+    //分类名称
+    private String name;
+
+    //顺序
+    private Integer sort;
+
+    //启售的菜品（含口味），套餐分类为空
+    private List<DishVO> dishes;
+
+    //启售的套餐，菜品分类为空
+    private List<Setmeal> setmeals;
+}
@@ -0,0 +1,84 @@
+package com.sky.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * 本地缓存失效广播：某个节点清理缓存后，通过Redis发布订阅通知其他节点清理各自的本地缓存
+ */
+@Component
+@Slf4j
+public class CacheInvalidationBroadcaster implements MessageListener {
+
+    // 失效通知频道
+    public static final String CHANNEL = "cache_invalidation";
+
+    // 消息格式：节点id|缓存名称|key，key为空表示清理该缓存的全部数据
+    private static final String SEPARATOR = "|";
+
+    // 当前节点id，用来忽略自己发出的消息
+    private final String nodeId = UUID.randomUUID().toString();
+
+    // 缓存名称 -> 本地缓存清理方法（参数为key，null表示全部）
+    private final Map<String, Consumer<String>> evictors = new ConcurrentHashMap<>();
+
+    @Autowired
+    private RedisTemplate redisTemplate;
+
+
+    /**
+     * 登记本地缓存的清理方法
+     * @param cacheName
+     * @param evictor
+     */
+    public void register(String cacheName, Consumer<String> evictor) {
+        evictors.put(cacheName, evictor);
+    }
+
+    /**
+     * 通知其他节点清理本地缓存
+     * @param cacheName
+     * @param key 为null时清理全部
+     */
+    public void publish(String cacheName, Object key) {
+        String message = nodeId + SEPARATOR + cacheName + SEPARATOR + (key == null ? "" : key);
+
+        try {
+            redisTemplate.convertAndSend(CHANNEL, message);
+        } catch (Exception e) {
+            // 通知失败时其他节点的本地缓存会在过期后自动刷新
+            log.error("发送缓存失效通知失败: {}", message, e);
+        }
+    }
+
+    /**
+     * 收到其他节点的失效通知
+     * @param message
+     * @param pattern
+     */
+    public void onMessage(Message message, byte[] pattern) {
+        String body = (String) redisTemplate.getValueSerializer().deserialize(message.getBody());
+        if (body == null) {
+            return;
+        }
+
+        String[] parts = body.split("\\|", 3);
+        if (parts.length < 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+
+        Consumer<String> evictor = evictors.get(parts[1]);
+        if (evictor != null) {
+            evictor.accept(parts[2].isEmpty() ? null : parts[2]);
+        }
+    }
+}
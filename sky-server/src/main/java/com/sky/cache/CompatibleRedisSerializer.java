@@ -0,0 +1,40 @@
+package com.sky.cache;
+
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+/**
+ * 兼容旧数据的序列化器：写入时使用指定的序列化器，读取时先识别数据格式，
+ * JDK序列化的旧数据仍按JDK方式读取，切换序列化方式后已有的key不需要清空
+ */
+public class CompatibleRedisSerializer<T> implements RedisSerializer<T> {
+
+    // JDK序列化数据的开头两个字节 0xACED
+    private static final byte JDK_MAGIC_0 = (byte) 0xAC;
+    private static final byte JDK_MAGIC_1 = (byte) 0xED;
+
+    private final RedisSerializer<T> serializer;
+
+    private final RedisSerializer<Object> jdkSerializer = new JdkSerializationRedisSerializer();
+
+    public CompatibleRedisSerializer(RedisSerializer<T> serializer) {
+        this.serializer = serializer;
+    }
+
+    public byte[] serialize(T t) throws SerializationException {
+        return serializer.serialize(t);
+    }
+
+    public T deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+
+        if (bytes.length > 1 && bytes[0] == JDK_MAGIC_0 && bytes[1] == JDK_MAGIC_1) {
+            return (T) jdkSerializer.deserialize(bytes);
+        }
+
+        return serializer.deserialize(bytes);
+    }
+}
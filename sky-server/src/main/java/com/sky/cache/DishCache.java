@@ -0,0 +1,373 @@
+package com.sky.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sky.config.CacheConfiguration;
+import com.sky.vo.DishVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 菜品缓存：按分类缓存启售菜品，本地缓存为一级，Redis为二级。
+ * Redis中的key统一登记在一个集合中，清理时只删除登记过的key，不再用keys命令扫描整个Redis；
+ * 清理后通过失效通知让其他节点同时清理本地缓存。
+ * 缓存未命中时，同一分类的并发请求只有一个去查数据库，其余等待它的结果；
+ * 刚被清理的分类在重新加载完成前继续返回旧数据。
+ * Redis中的数据设置过期时间，漏掉的清理（如失效通知晚到时写回了旧数据）到期后自愈
+ */
+@Component
+@Slf4j
+public class DishCache {
+
+    // 分类下启售菜品的缓存 dish_{categoryId}
+    public static final String KEY_PREFIX = "dish_";
+
+    // 登记所有菜品缓存key的集合
+    private static final String INDEX_KEY = "dish_cache_keys";
+
+    // 跨节点加载锁 dish_lock_{categoryId}
+    private static final String LOCK_PREFIX = "dish_lock_";
+
+    private static final long LOCK_SECONDS = 10;
+
+    // 只释放自己持有的加载锁，加载超过锁的有效期时不会删掉其他节点的锁
+    private static final DefaultRedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) end " +
+            "return 0", Long.class);
+
+    // 登记key并写入数据，与清理脚本都在一个脚本中完成，登记和数据不会被并发的清理拆开
+    private static final DefaultRedisScript<Long> PUT_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('sadd', KEYS[1], KEYS[2]) " +
+            "redis.call('set', KEYS[2], ARGV[1], 'EX', " + TimeUnit.MINUTES.toSeconds(CacheConfiguration.REDIS_EXPIRE_MINUTES) + ") " +
+            "return 1", Long.class);
+
+    // 删除数据并取消登记，KEYS[1]为登记集合，其余为要清理的key
+    private static final DefaultRedisScript<Long> EVICT_SCRIPT = new DefaultRedisScript<>(
+            "for i = 2, #KEYS do " +
+            "  redis.call('srem', KEYS[1], KEYS[i]) " +
+            "  redis.call('del', KEYS[i]) " +
+            "end " +
+            "return #KEYS - 1", Long.class);
+
+    // 没抢到加载锁时，等待其他节点写入缓存的次数和间隔
+    private static final int LOCK_WAIT_TIMES = 10;
+    private static final long LOCK_WAIT_MILLIS = 50;
+
+    // 旧数据最多保留的时间（秒）
+    private static final long STALE_EXPIRE_SECONDS = 300;
+
+    // 失效通知中使用的缓存名称
+    private static final String CACHE_NAME = "dishCache";
+
+    // 本地缓存：分类id -> 启售菜品
+    private final Cache<Long, List<DishVO>> localCache = Caffeine.newBuilder()
+            .maximumSize(CacheConfiguration.LOCAL_MAXIMUM_SIZE)
+            .expireAfterWrite(CacheConfiguration.LOCAL_EXPIRE_SECONDS, TimeUnit.SECONDS)
+            .build();
+
+    // 被清理掉的旧数据，重新加载期间继续返回
+    private final Cache<Long, List<DishVO>> staleCache = Caffeine.newBuilder()
+            .maximumSize(CacheConfiguration.LOCAL_MAXIMUM_SIZE)
+            .expireAfterWrite(STALE_EXPIRE_SECONDS, TimeUnit.SECONDS)
+            .build();
+
+    // 正在加载的分类，同一分类的并发请求共用一次加载
+    private final ConcurrentHashMap<Long, CompletableFuture<List<DishVO>>> loadingMap = new ConcurrentHashMap<>();
+
+    // 每个分类的缓存版本，清理该分类时加1，加载期间该分类被清理过时不把加载结果写入缓存，避免写回清理前的数据
+    // 分类id来自请求参数，限制数量并淘汰不再访问的分类
+    private final Cache<Long, AtomicLong> generations = Caffeine.newBuilder()
+            .maximumSize(CacheConfiguration.LOCAL_MAXIMUM_SIZE)
+            .expireAfterAccess(STALE_EXPIRE_SECONDS, TimeUnit.SECONDS)
+            .build();
+
+    // 清理全部分类时加1
+    private final AtomicLong allGeneration = new AtomicLong();
+
+    // 是否使用Redis锁让多个节点中只有一个去查数据库
+    @Value("${sky.cache.dish-load-lock:true}")
+    private boolean loadLockEnabled;
+
+    @Autowired
+    private RedisTemplate<String, List<DishVO>> dishRedisTemplate;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private CacheInvalidationBroadcaster broadcaster;
+
+    @Autowired
+    private ThreadPoolTaskExecutor cacheRefreshExecutor;
+
+
+    @PostConstruct
+    public void init() {
+        // 收到其他节点的失效通知时清理本地缓存
+        broadcaster.register(CACHE_NAME, key -> {
+            if (key == null) {
+                invalidateLocalAll();
+            } else {
+                invalidateLocal(Long.valueOf(key));
+            }
+        });
+    }
+
+
+    /**
+     * 查询分类下的菜品缓存
+     * @param categoryId
+     * @return 没有缓存时返回null
+     */
+    public List<DishVO> get(Long categoryId) {
+        List<DishVO> list = localCache.getIfPresent(categoryId);
+        if (list != null) {
+            return list;
+        }
+
+        list = dishRedisTemplate.opsForValue().get(KEY_PREFIX + categoryId);
+        if (list != null) {
+            localCache.put(categoryId, list);
+        }
+
+        return list;
+    }
+
+    /**
+     * 查询分类下的菜品，缓存未命中时通过loader加载并写入缓存
+     * 有旧数据时直接返回旧数据，同时在后台重新加载
+     * @param categoryId 为null时不使用缓存
+     * @param loader
+     * @return
+     */
+    public List<DishVO> get(Long categoryId, Supplier<List<DishVO>> loader) {
+        // 没有指定分类时直接查询，不缓存
+        if (categoryId == null) {
+            return loader.get();
+        }
+
+        List<DishVO> list = get(categoryId);
+        if (list != null) {
+            return list;
+        }
+
+        List<DishVO> stale = staleCache.getIfPresent(categoryId);
+        if (stale != null) {
+            load(categoryId, loader, true);
+            return stale;
+        }
+
+        try {
+            return load(categoryId, loader, false).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 重新加载分类下的菜品并写入缓存（缓存预热）
+     * @param categoryId
+     * @param loader
+     */
+    public void refresh(Long categoryId, Supplier<List<DishVO>> loader) {
+        load(categoryId, loader, false).join();
+    }
+
+    /**
+     * 缓存分类下的菜品
+     * @param categoryId
+     * @param list
+     */
+    public void put(Long categoryId, List<DishVO> list) {
+        String key = KEY_PREFIX + categoryId;
+
+        // 登记和写入在一个脚本中完成，写入的key一定能被清理到；设置过期时间，漏掉的清理到期后自愈
+        dishRedisTemplate.execute(PUT_SCRIPT, Arrays.asList(INDEX_KEY, key), list);
+
+        localCache.put(categoryId, list);
+        staleCache.invalidate(categoryId);
+    }
+
+    /**
+     * 清理某个分类的菜品缓存
+     * @param categoryId
+     */
+    public void evict(Long categoryId) {
+        String key = KEY_PREFIX + categoryId;
+
+        stringRedisTemplate.execute(EVICT_SCRIPT, Arrays.asList(INDEX_KEY, key));
+
+        invalidateLocal(categoryId);
+        broadcaster.publish(CACHE_NAME, categoryId);
+    }
+
+    /**
+     * 清理全部菜品缓存
+     */
+    public void evictAll() {
+        Set<String> keys = stringRedisTemplate.opsForSet().members(INDEX_KEY);
+
+        if (keys != null && !keys.isEmpty()) {
+            List<String> scriptKeys = new ArrayList<>();
+            scriptKeys.add(INDEX_KEY);
+            scriptKeys.addAll(keys);
+
+            stringRedisTemplate.execute(EVICT_SCRIPT, scriptKeys);
+        }
+
+        invalidateLocalAll();
+        broadcaster.publish(CACHE_NAME, null);
+
+        log.info("清理菜品缓存: {}", keys);
+    }
+
+
+    /**
+     * 加载分类下的菜品，同一分类同时只有一次加载
+     * @param categoryId
+     * @param loader
+     * @param async 是否在后台线程加载
+     * @return
+     */
+    private CompletableFuture<List<DishVO>> load(Long categoryId, Supplier<List<DishVO>> loader, boolean async) {
+        CompletableFuture<List<DishVO>> future = new CompletableFuture<>();
+
+        CompletableFuture<List<DishVO>> loading = loadingMap.putIfAbsent(categoryId, future);
+        if (loading != null) {
+            return loading;
+        }
+
+        Runnable task = () -> {
+            try {
+                future.complete(loadAndPut(categoryId, loader));
+            } catch (Throwable e) {
+                log.error("加载菜品缓存失败: {}", categoryId, e);
+                future.completeExceptionally(e);
+            } finally {
+                loadingMap.remove(categoryId, future);
+            }
+        };
+
+        if (!async) {
+            task.run();
+            return future;
+        }
+
+        try {
+            cacheRefreshExecutor.execute(task);
+        } catch (TaskRejectedException e) {
+            // 后台线程忙，下次请求再刷新，这次继续返回旧数据
+            loadingMap.remove(categoryId, future);
+            future.completeExceptionally(e);
+        }
+
+        return future;
+    }
+
+    /**
+     * 查询数据库并写入缓存，开启加载锁时多个节点中只有一个去查数据库
+     * @param categoryId
+     * @param loader
+     * @return
+     */
+    private List<DishVO> loadAndPut(Long categoryId, Supplier<List<DishVO>> loader) {
+        if (!loadLockEnabled) {
+            return loadFromDb(categoryId, loader);
+        }
+
+        String lockKey = LOCK_PREFIX + categoryId;
+        String token = UUID.randomUUID().toString();
+
+        Boolean locked = stringRedisTemplate.opsForValue().setIfAbsent(lockKey, token, LOCK_SECONDS, TimeUnit.SECONDS);
+        if (Boolean.TRUE.equals(locked)) {
+            try {
+                return loadFromDb(categoryId, loader);
+            } finally {
+                stringRedisTemplate.execute(UNLOCK_SCRIPT, Collections.singletonList(lockKey), token);
+            }
+        }
+
+        // 其他节点正在加载，等它写入Redis
+        for (int i = 0; i < LOCK_WAIT_TIMES; i++) {
+            try {
+                Thread.sleep(LOCK_WAIT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+
+            List<DishVO> list = get(categoryId);
+            if (list != null) {
+                return list;
+            }
+        }
+
+        // 等待超时，自己查数据库
+        return loadFromDb(categoryId, loader);
+    }
+
+    private List<DishVO> loadFromDb(Long categoryId, Supplier<List<DishVO>> loader) {
+        AtomicLong generation = generation(categoryId);
+        long current = generation.get();
+        long currentAll = allGeneration.get();
+
+        List<DishVO> list = loader.get();
+
+        // 加载期间该分类的缓存被清理过（或版本已被淘汰，无法判断），说明数据可能已经变了，这次结果只返回不缓存
+        if (generation == generations.getIfPresent(categoryId)
+                && current == generation.get() && currentAll == allGeneration.get()) {
+            put(categoryId, list);
+        }
+
+        return list;
+    }
+
+    private AtomicLong generation(Long categoryId) {
+        return generations.get(categoryId, id -> new AtomicLong());
+    }
+
+    /**
+     * 清理本地缓存，原有数据转为旧数据
+     * @param categoryId
+     */
+    private void invalidateLocal(Long categoryId) {
+        generation(categoryId).incrementAndGet();
+
+        List<DishVO> list = localCache.getIfPresent(categoryId);
+        if (list != null) {
+            staleCache.put(categoryId, list);
+        }
+        localCache.invalidate(categoryId);
+    }
+
+    private void invalidateLocalAll() {
+        allGeneration.incrementAndGet();
+
+        localCache.asMap().forEach(staleCache::put);
+        localCache.invalidateAll();
+    }
+}
@@ -0,0 +1,159 @@
+package com.sky.cache;
+
+import com.sky.constant.StatusConstant;
+import com.sky.entity.Category;
+import com.sky.entity.Dish;
+import com.sky.entity.Setmeal;
+import com.sky.job.JobRunner;
+import com.sky.mapper.CategoryMapper;
+import com.sky.result.Result;
+import com.sky.service.DishService;
+import com.sky.service.SetmealService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 菜单缓存预热：应用启动后、以及管理端修改菜品或套餐后，
+ * 在后台把所有启用分类的菜品缓存和套餐缓存重新加载一遍，用户第一次访问时不用再查数据库
+ */
+@Component
+@Slf4j
+public class MenuCacheWarmer {
+
+    // 套餐缓存名称，与C端SetmealController的@Cacheable一致
+    public static final String SETMEAL_CACHE = "setmealCache";
+
+    // 执行统计中的任务名称（见 /admin/job/stats）
+    private static final String JOB_NAME = "menuCacheWarmUp";
+
+    // 是否已有预热任务在排队，排队期间的多次修改合并为一次预热
+    private final AtomicBoolean pending = new AtomicBoolean(false);
+
+    @Autowired
+    private CategoryMapper categoryMapper;
+
+    @Autowired
+    private DishService dishService;
+
+    @Autowired
+    private SetmealService setmealService;
+
+    @Autowired
+    private DishCache dishCache;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ThreadPoolTaskExecutor cacheRefreshExecutor;
+
+    @Autowired
+    private JobRunner jobRunner;
+
+
+    /**
+     * 应用启动完成后预热
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        log.info("应用启动完成，开始预热菜单缓存...");
+
+        submit();
+    }
+
+    /**
+     * 菜单修改后在后台预热：调用方须在修改提交、并清理完缓存之后调用
+     * （菜品缓存由DishCache.evict同步清理；套餐缓存由evictSetmealCache清理）
+     */
+    public void warmUpAsync() {
+        submit();
+    }
+
+    /**
+     * 清理套餐缓存：须在套餐修改提交后调用，提交前清理时并发的查询会把旧数据重新放入缓存
+     * @param categoryId 套餐分类id，为null时清理全部套餐缓存
+     */
+    public void evictSetmealCache(Long categoryId) {
+        Cache setmealCache = cacheManager.getCache(SETMEAL_CACHE);
+
+        if (categoryId == null) {
+            setmealCache.clear();
+        } else {
+            setmealCache.evict(categoryId);
+        }
+    }
+
+    /**
+     * 重新加载所有启用分类的菜品缓存和套餐缓存
+     */
+    public void warmUp() {
+        long start = System.currentTimeMillis();
+
+        // 菜品缓存
+        List<Category> dishCategories = categoryMapper.list(Category.DISH_TYPE);
+        for (Category category : dishCategories) {
+            Dish dish = new Dish();
+            dish.setCategoryId(category.getId());
+            dish.setStatus(StatusConstant.ENABLE);
+
+            try {
+                dishCache.refresh(category.getId(), () -> dishService.listWithFlavor(dish));
+            } catch (Exception e) {
+                log.error("预热菜品缓存失败: {}", category.getId(), e);
+            }
+        }
+
+        // 套餐缓存
+        Cache setmealCache = cacheManager.getCache(SETMEAL_CACHE);
+        List<Category> setmealCategories = categoryMapper.list(Category.SETMEAL_TYPE);
+        for (Category category : setmealCategories) {
+            Setmeal setmeal = new Setmeal();
+            setmeal.setCategoryId(category.getId());
+            setmeal.setStatus(StatusConstant.ENABLE);
+
+            try {
+                setmealCache.put(category.getId(), Result.success(setmealService.list(setmeal)));
+            } catch (Exception e) {
+                log.error("预热套餐缓存失败: {}", category.getId(), e);
+            }
+        }
+
+        long duration = System.currentTimeMillis() - start;
+        jobRunner.record(JOB_NAME, duration, true);
+
+        log.info("菜单缓存预热完成: 菜品分类{}个, 套餐分类{}个, 耗时{}ms",
+                dishCategories.size(), setmealCategories.size(), duration);
+    }
+
+
+    /**
+     * 提交预热任务，已有任务在排队时不重复提交
+     */
+    private void submit() {
+        if (!pending.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            cacheRefreshExecutor.execute(() -> {
+                // 预热开始后的修改需要再预热一次
+                pending.set(false);
+
+                warmUp();
+            });
+        } catch (TaskRejectedException e) {
+            pending.set(false);
+            log.warn("缓存刷新线程池已满，跳过本次菜单缓存预热");
+        }
+    }
+}
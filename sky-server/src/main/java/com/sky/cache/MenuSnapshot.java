@@ -0,0 +1,24 @@
+package com.sky.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 序列化好的菜单快照，同时保存原始json和gzip压缩后的内容
+ */
+@Getter
+@AllArgsConstructor
+public class MenuSnapshot {
+
+    private final long version;
+
+    // 未压缩内容的ETag（内容摘要）
+    private final String etag;
+
+    // 压缩内容的ETag
+    private final String gzipEtag;
+
+    private final byte[] body;
+
+    private final byte[] gzipBody;
+}
@@ -0,0 +1,189 @@
+package com.sky.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sky.constant.StatusConstant;
+import com.sky.entity.Category;
+import com.sky.entity.Dish;
+import com.sky.entity.Setmeal;
+import com.sky.json.JacksonObjectMapper;
+import com.sky.mapper.CategoryMapper;
+import com.sky.result.Result;
+import com.sky.service.DishService;
+import com.sky.service.SetmealService;
+import com.sky.vo.MenuCategoryVO;
+import com.sky.vo.MenuSnapshotVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 菜单快照缓存：把所有分类、菜品（含口味）和套餐序列化成一份json，
+ * 按菜单版本号缓存在本地。管理端修改菜单后版本号加1，各节点在下次请求时重新生成。
+ * 快照直接查数据库生成（不读本地缓存，其他节点的失效通知可能还没到），ETag取内容的摘要，不同内容不会出现相同的ETag
+ */
+@Component
+@Slf4j
+public class MenuSnapshotCache {
+
+    // 菜单版本号
+    private static final String VERSION_KEY = "menu_version";
+
+    private final ObjectMapper objectMapper = new JacksonObjectMapper();
+
+    // 当前节点缓存的最新快照
+    private volatile MenuSnapshot snapshot;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private CategoryMapper categoryMapper;
+
+    @Autowired
+    private DishService dishService;
+
+    @Autowired
+    private SetmealService setmealService;
+
+
+    /**
+     * 获取当前版本的菜单快照
+     * @return
+     */
+    public MenuSnapshot getSnapshot() {
+        long version = getVersion();
+
+        MenuSnapshot current = snapshot;
+        if (current != null && current.getVersion() == version) {
+            return current;
+        }
+
+        return build(version);
+    }
+
+    /**
+     * 菜单修改后版本号加1，必须在数据库修改完成之后调用
+     */
+    public void bumpVersion() {
+        Long version = stringRedisTemplate.opsForValue().increment(VERSION_KEY);
+
+        log.info("菜单版本号更新为: {}", version);
+    }
+
+    /**
+     * 查询菜单版本号
+     * @return
+     */
+    public long getVersion() {
+        // 只读不写：每次查询快照都会调用，不用incr（写命令会同步到AOF和从节点）
+        String version = stringRedisTemplate.opsForValue().get(VERSION_KEY);
+
+        return version == null ? 0 : Long.parseLong(version);
+    }
+
+
+    /**
+     * 生成快照，同一时间只生成一次
+     * 先读版本号再查数据，快照的内容不会比它的版本号旧
+     * 版本号不同就重新生成（Redis数据丢失后版本号会变小）
+     * @param version
+     * @return
+     */
+    private synchronized MenuSnapshot build(long version) {
+        MenuSnapshot current = snapshot;
+        if (current != null && current.getVersion() == version) {
+            return current;
+        }
+
+        long start = System.currentTimeMillis();
+
+        List<MenuCategoryVO> categories = new ArrayList<>();
+        for (Category category : categoryMapper.list(null)) {
+            MenuCategoryVO categoryVO = MenuCategoryVO.builder()
+                    .id(category.getId())
+                    .type(category.getType())
+                    .name(category.getName())
+                    .sort(category.getSort())
+                    .build();
+
+            if (Category.DISH_TYPE.equals(category.getType())) {
+                Dish dish = new Dish();
+                dish.setCategoryId(category.getId());
+                dish.setStatus(StatusConstant.ENABLE);
+
+                categoryVO.setDishes(dishService.listWithFlavor(dish));
+            } else {
+                Setmeal setmeal = new Setmeal();
+                setmeal.setCategoryId(category.getId());
+                setmeal.setStatus(StatusConstant.ENABLE);
+
+                categoryVO.setSetmeals(setmealService.list(setmeal));
+            }
+
+            categories.add(categoryVO);
+        }
+
+        MenuSnapshotVO menuSnapshotVO = MenuSnapshotVO.builder()
+                .version(version)
+                .categories(categories)
+                .build();
+
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(Result.success(menuSnapshotVO));
+            String digest = digest(body);
+
+            current = new MenuSnapshot(version,
+                    "\"menu-" + digest + "\"",
+                    "\"menu-" + digest + "-gzip\"",
+                    body,
+                    gzip(body));
+        } catch (IOException e) {
+            throw new IllegalStateException("菜单快照序列化失败", e);
+        }
+
+        snapshot = current;
+
+        log.info("生成菜单快照: 版本{}, 分类{}个, {}字节, 耗时{}ms",
+                version, categories.size(), current.getBody().length, System.currentTimeMillis() - start);
+
+        return current;
+    }
+
+    /**
+     * 内容的SHA-256摘要（前32位十六进制）
+     * @param body
+     * @return
+     */
+    private String digest(byte[] body) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(body);
+
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 16; i++) {
+                sb.append(String.format("%02x", hash[i]));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(body.length / 4);
+
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream)) {
+            gzipOutputStream.write(body);
+        }
+
+        return outputStream.toByteArray();
+    }
+}
@@ -0,0 +1,150 @@
+package com.sky.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sky.config.CacheConfiguration;
+import com.sky.entity.Dish;
+import com.sky.entity.Setmeal;
+import com.sky.mapper.DishMapper;
+import com.sky.mapper.SetmealMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 商品目录缓存：按id缓存菜品和套餐的名称、图片、价格，第一次用到时查数据库。
+ * 管理端修改菜品或套餐后清理对应的记录，并通知其他节点
+ */
+@Component
+@Slf4j
+public class ProductCatalog {
+
+    // 失效通知中使用的缓存名称
+    private static final String DISH_CACHE = "dishCatalog";
+    private static final String SETMEAL_CACHE = "setmealCatalog";
+
+    // 菜品id -> 菜品信息（限制数量并定时过期，漏掉失效通知时最多旧一个过期时间）
+    private final Cache<Long, ProductInfo> dishes = Caffeine.newBuilder()
+            .maximumSize(CacheConfiguration.LOCAL_MAXIMUM_SIZE)
+            .expireAfterWrite(CacheConfiguration.LOCAL_EXPIRE_SECONDS, TimeUnit.SECONDS)
+            .build();
+
+    // 套餐id -> 套餐信息
+    private final Cache<Long, ProductInfo> setmeals = Caffeine.newBuilder()
+            .maximumSize(CacheConfiguration.LOCAL_MAXIMUM_SIZE)
+            .expireAfterWrite(CacheConfiguration.LOCAL_EXPIRE_SECONDS, TimeUnit.SECONDS)
+            .build();
+
+    // 每次清理加1，加载期间发生过清理时不缓存加载结果
+    private final AtomicLong generation = new AtomicLong();
+
+    @Autowired
+    private DishMapper dishMapper;
+
+    @Autowired
+    private SetmealMapper setmealMapper;
+
+    @Autowired
+    private CacheInvalidationBroadcaster broadcaster;
+
+
+    @PostConstruct
+    public void init() {
+        // 收到其他节点的失效通知时清理本地记录
+        broadcaster.register(DISH_CACHE, key -> evictLocal(dishes, key));
+        broadcaster.register(SETMEAL_CACHE, key -> evictLocal(setmeals, key));
+    }
+
+
+    /**
+     * 查询菜品信息
+     * @param id
+     * @return 菜品不存在时返回null
+     */
+    public ProductInfo getDish(Long id) {
+        ProductInfo productInfo = dishes.getIfPresent(id);
+        if (productInfo != null) {
+            return productInfo;
+        }
+
+        long current = generation.get();
+
+        Dish dish = dishMapper.getById(id);
+        if (dish == null) {
+            return null;
+        }
+
+        productInfo = new ProductInfo(dish.getId(), dish.getName(), dish.getImage(), dish.getPrice());
+        if (current == generation.get()) {
+            dishes.put(id, productInfo);
+        }
+
+        return productInfo;
+    }
+
+    /**
+     * 查询套餐信息
+     * @param id
+     * @return 套餐不存在时返回null
+     */
+    public ProductInfo getSetmeal(Long id) {
+        ProductInfo productInfo = setmeals.getIfPresent(id);
+        if (productInfo != null) {
+            return productInfo;
+        }
+
+        long current = generation.get();
+
+        Setmeal setmeal = setmealMapper.getById(id);
+        if (setmeal == null) {
+            return null;
+        }
+
+        productInfo = new ProductInfo(setmeal.getId(), setmeal.getName(), setmeal.getImage(), setmeal.getPrice());
+        if (current == generation.get()) {
+            setmeals.put(id, productInfo);
+        }
+
+        return productInfo;
+    }
+
+    /**
+     * 菜品修改后清理
+     * @param ids
+     */
+    public void evictDishes(List<Long> ids) {
+        for (Long id : ids) {
+            generation.incrementAndGet();
+            dishes.invalidate(id);
+            broadcaster.publish(DISH_CACHE, id);
+        }
+    }
+
+    /**
+     * 套餐修改后清理
+     * @param ids
+     */
+    public void evictSetmeals(List<Long> ids) {
+        for (Long id : ids) {
+            generation.incrementAndGet();
+            setmeals.invalidate(id);
+            broadcaster.publish(SETMEAL_CACHE, id);
+        }
+    }
+
+
+    private void evictLocal(Cache<Long, ProductInfo> products, String key) {
+        generation.incrementAndGet();
+
+        if (key == null) {
+            products.invalidateAll();
+        } else {
+            products.invalidate(Long.valueOf(key));
+        }
+    }
+}
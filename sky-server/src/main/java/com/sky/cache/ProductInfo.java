@@ -0,0 +1,22 @@
+package com.sky.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+/**
+ * 商品目录中的一条记录：加购物车和再来一单时需要的菜品/套餐信息
+ */
+@Getter
+@AllArgsConstructor
+public class ProductInfo {
+
+    private final long id;
+
+    private final String name;
+
+    private final String image;
+
+    private final BigDecimal price;
+}
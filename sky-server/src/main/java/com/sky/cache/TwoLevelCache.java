@@ -0,0 +1,111 @@
+package com.sky.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+
+/**
+ * 二级缓存：本地Caffeine为一级，Redis为二级。
+ * 读先查本地，未命中再查Redis并回填本地；清理时同时清理两级，并通知其他节点清理本地缓存
+ */
+public class TwoLevelCache implements org.springframework.cache.Cache {
+
+    private final String name;
+
+    // 一级缓存，key统一转成字符串，方便按失效通知里的key清理
+    private final Cache<String, ValueWrapper> localCache;
+
+    // 二级缓存
+    private final org.springframework.cache.Cache redisCache;
+
+    private final CacheInvalidationBroadcaster broadcaster;
+
+    public TwoLevelCache(String name, Cache<String, ValueWrapper> localCache,
+                         org.springframework.cache.Cache redisCache, CacheInvalidationBroadcaster broadcaster) {
+        this.name = name;
+        this.localCache = localCache;
+        this.redisCache = redisCache;
+        this.broadcaster = broadcaster;
+
+        broadcaster.register(name, key -> {
+            if (key == null) {
+                localCache.invalidateAll();
+            } else {
+                localCache.invalidate(key);
+            }
+        });
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Object getNativeCache() {
+        return this;
+    }
+
+    public ValueWrapper get(Object key) {
+        String localKey = String.valueOf(key);
+
+        ValueWrapper valueWrapper = localCache.getIfPresent(localKey);
+        if (valueWrapper != null) {
+            return valueWrapper;
+        }
+
+        valueWrapper = redisCache.get(key);
+        if (valueWrapper != null) {
+            localCache.put(localKey, valueWrapper);
+        }
+
+        return valueWrapper;
+    }
+
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper valueWrapper = get(key);
+        if (valueWrapper == null) {
+            return null;
+        }
+
+        Object value = valueWrapper.get();
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("缓存值类型不匹配: " + type.getName());
+        }
+
+        return (T) value;
+    }
+
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper valueWrapper = get(key);
+        if (valueWrapper != null) {
+            return (T) valueWrapper.get();
+        }
+
+        T value = redisCache.get(key, valueLoader);
+        localCache.put(String.valueOf(key), new SimpleValueWrapper(value));
+
+        return value;
+    }
+
+    /**
+     * 写入缓存：值来自数据库查询，各节点查到的内容一致，所以不需要通知其他节点
+     */
+    public void put(Object key, Object value) {
+        redisCache.put(key, value);
+        localCache.put(String.valueOf(key), new SimpleValueWrapper(value));
+    }
+
+    public void evict(Object key) {
+        redisCache.evict(key);
+        localCache.invalidate(String.valueOf(key));
+
+        broadcaster.publish(name, key);
+    }
+
+    public void clear() {
+        redisCache.clear();
+        localCache.invalidateAll();
+
+        broadcaster.publish(name, null);
+    }
+}
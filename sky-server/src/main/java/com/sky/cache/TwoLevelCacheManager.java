@@ -0,0 +1,51 @@
+package com.sky.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 二级缓存管理器：为Spring Cache的每个缓存在Redis缓存前面加一层本地缓存
+ */
+public class TwoLevelCacheManager implements CacheManager {
+
+    private final CacheManager redisCacheManager;
+
+    private final CacheInvalidationBroadcaster broadcaster;
+
+    // 本地缓存每个缓存最多保存的条数
+    private final long localMaximumSize;
+
+    // 本地缓存过期时间（秒），失效通知丢失时最多延迟这么久
+    private final long localExpireSeconds;
+
+    private final Map<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public TwoLevelCacheManager(CacheManager redisCacheManager, CacheInvalidationBroadcaster broadcaster,
+                                long localMaximumSize, long localExpireSeconds) {
+        this.redisCacheManager = redisCacheManager;
+        this.broadcaster = broadcaster;
+        this.localMaximumSize = localMaximumSize;
+        this.localExpireSeconds = localExpireSeconds;
+    }
+
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, key -> new TwoLevelCache(key,
+                Caffeine.newBuilder()
+                        .maximumSize(localMaximumSize)
+                        .expireAfterWrite(localExpireSeconds, TimeUnit.SECONDS)
+                        .build(),
+                redisCacheManager.getCache(key),
+                broadcaster));
+    }
+
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+}
@@ -0,0 +1,50 @@
+package com.sky.cart;
+
+import com.sky.entity.ShoppingCart;
+
+import java.util.List;
+
+/**
+ * 购物车存储
+ * 购物车中的一个商品由 用户id + 菜品id + 口味 或 用户id + 套餐id 确定
+ */
+public interface CartStore {
+
+    /**
+     * 查询用户购物车中的所有商品，按加入时间倒序
+     * @param userId
+     * @return
+     */
+    List<ShoppingCart> list(Long userId);
+
+    /**
+     * 商品已在购物车中时数量加一
+     * @param shoppingCart 用户id、菜品id、口味、套餐id
+     * @return 商品不在购物车中时返回false
+     */
+    boolean increaseIfPresent(ShoppingCart shoppingCart);
+
+    /**
+     * 新加入购物车的商品，数量为shoppingCart.number
+     * @param shoppingCart 包含名称、图片、金额等完整信息
+     */
+    void add(ShoppingCart shoppingCart);
+
+    /**
+     * 批量加入购物车（再来一单）
+     * @param shoppingCartList
+     */
+    void addAll(List<ShoppingCart> shoppingCartList);
+
+    /**
+     * 商品数量减一，减到0时从购物车中删除
+     * @param shoppingCart 用户id、菜品id、口味、套餐id
+     */
+    void decrease(ShoppingCart shoppingCart);
+
+    /**
+     * 清空用户购物车（在事务中调用时，事务回滚后购物车保持不变）
+     * @param userId
+     */
+    void clean(Long userId);
+}
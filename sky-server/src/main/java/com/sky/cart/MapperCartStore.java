@@ -0,0 +1,60 @@
+package com.sky.cart;
+
+import com.sky.entity.ShoppingCart;
+import com.sky.mapper.ShoppingCartMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 购物车存储在MySQL的shopping_cart表（默认）
+ * 数量的增减都是单条语句完成，依赖唯一索引uk_user_item（见sql/shopping_cart_unique.sql）
+ */
+@Component
+@ConditionalOnProperty(prefix = "sky.cart", name = "store", havingValue = "mysql", matchIfMissing = true)
+public class MapperCartStore implements CartStore {
+
+    @Autowired
+    private ShoppingCartMapper shoppingCartMapper;
+
+
+    public List<ShoppingCart> list(Long userId) {
+        ShoppingCart shoppingCart = ShoppingCart.builder()
+                .userId(userId)
+                .build();
+
+        return shoppingCartMapper.list(shoppingCart);
+    }
+
+    public boolean increaseIfPresent(ShoppingCart shoppingCart) {
+        // 直接在数据库中加一，商品不在购物车中时不会更新任何行
+        return shoppingCartMapper.increaseNumber(shoppingCart) > 0;
+    }
+
+    public void add(ShoppingCart shoppingCart) {
+        // 并发加入同一商品时，后插入的一条会累加到已有的行上
+        shoppingCartMapper.insertOrIncreaseBatch(Collections.singletonList(shoppingCart));
+    }
+
+    public void addAll(List<ShoppingCart> shoppingCartList) {
+        if (shoppingCartList == null || shoppingCartList.isEmpty()) {
+            return;
+        }
+
+        shoppingCartMapper.insertOrIncreaseBatch(shoppingCartList);
+    }
+
+    public void decrease(ShoppingCart shoppingCart) {
+        // 数量大于1时减一；否则说明只剩最后一份，直接删除
+        if (shoppingCartMapper.decreaseNumber(shoppingCart) == 0) {
+            shoppingCartMapper.deleteLast(shoppingCart);
+        }
+    }
+
+    public void clean(Long userId) {
+        shoppingCartMapper.deleteByUserId(userId);
+    }
+}
@@ -0,0 +1,179 @@
+package com.sky.cart;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sky.entity.ShoppingCart;
+import com.sky.event.AfterCommit;
+import com.sky.json.JacksonObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 购物车存储在Redis：每个用户一个hash  cart_{userId}
+ * field {商品key} 保存数量，用hincrby原子增减；field {商品key}:info 保存商品名称、图片、金额等信息
+ */
+@Component
+@ConditionalOnProperty(prefix = "sky.cart", name = "store", havingValue = "redis")
+@Slf4j
+public class RedisCartStore implements CartStore {
+
+    private static final String KEY_PREFIX = "cart_";
+
+    private static final String INFO_SUFFIX = ":info";
+
+    // 购物车多久没有操作就过期（天）
+    private static final long EXPIRE_DAYS = 7;
+
+    // 商品已在购物车中时数量加一，返回加一后的数量；不在时返回0
+    private static final DefaultRedisScript<Long> INCREASE_IF_PRESENT_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('hexists', KEYS[1], ARGV[1]) == 1 then " +
+            "  return redis.call('hincrby', KEYS[1], ARGV[1], 1) " +
+            "end " +
+            "return 0", Long.class);
+
+    // 数量减一，减到0时删除商品，返回剩余数量
+    private static final DefaultRedisScript<Long> DECREASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('hexists', KEYS[1], ARGV[1]) == 0 then return 0 end " +
+            "local number = redis.call('hincrby', KEYS[1], ARGV[1], -1) " +
+            "if number <= 0 then " +
+            "  redis.call('hdel', KEYS[1], ARGV[1], ARGV[1] .. ARGV[2]) " +
+            "  return 0 " +
+            "end " +
+            "return number", Long.class);
+
+    // 加入商品：商品信息只写一次，数量累加，并刷新过期时间；在一个脚本中完成，不会被并发的减少操作拆开
+    private static final DefaultRedisScript<Long> ADD_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('hsetnx', KEYS[1], ARGV[1] .. ARGV[2], ARGV[3]) " +
+            "local number = redis.call('hincrby', KEYS[1], ARGV[1], ARGV[4]) " +
+            "redis.call('expire', KEYS[1], ARGV[5]) " +
+            "return number", Long.class);
+
+    private final ObjectMapper objectMapper = new JacksonObjectMapper();
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+
+    public List<ShoppingCart> list(Long userId) {
+        Map<Object, Object> entries = stringRedisTemplate.opsForHash().entries(KEY_PREFIX + userId);
+
+        List<ShoppingCart> shoppingCartList = new ArrayList<>();
+
+        for (Map.Entry<Object, Object> entry : entries.entrySet()) {
+            String field = (String) entry.getKey();
+            if (field.endsWith(INFO_SUFFIX)) {
+                continue;
+            }
+
+            Object info = entries.get(field + INFO_SUFFIX);
+            if (info == null) {
+                continue;
+            }
+
+            ShoppingCart shoppingCart = fromJson((String) info);
+            shoppingCart.setUserId(userId);
+            shoppingCart.setNumber(Integer.valueOf((String) entry.getValue()));
+
+            shoppingCartList.add(shoppingCart);
+        }
+
+        // 与数据库存储一致，按加入时间倒序
+        shoppingCartList.sort(Comparator.comparing(ShoppingCart::getCreateTime,
+                Comparator.nullsLast(Comparator.reverseOrder())));
+
+        return shoppingCartList;
+    }
+
+    public boolean increaseIfPresent(ShoppingCart shoppingCart) {
+        String key = KEY_PREFIX + shoppingCart.getUserId();
+
+        Long number = stringRedisTemplate.execute(INCREASE_IF_PRESENT_SCRIPT,
+                Collections.singletonList(key), field(shoppingCart));
+
+        if (number == null || number == 0) {
+            return false;
+        }
+
+        stringRedisTemplate.expire(key, EXPIRE_DAYS, TimeUnit.DAYS);
+
+        return true;
+    }
+
+    public void add(ShoppingCart shoppingCart) {
+        String key = KEY_PREFIX + shoppingCart.getUserId();
+        String field = field(shoppingCart);
+
+        // 并发加入同一商品时数量累加，不会丢失
+        stringRedisTemplate.execute(ADD_SCRIPT, Collections.singletonList(key),
+                field, INFO_SUFFIX, toJson(shoppingCart), String.valueOf(shoppingCart.getNumber()),
+                String.valueOf(TimeUnit.DAYS.toSeconds(EXPIRE_DAYS)));
+    }
+
+    public void addAll(List<ShoppingCart> shoppingCartList) {
+        for (ShoppingCart shoppingCart : shoppingCartList) {
+            add(shoppingCart);
+        }
+    }
+
+    public void decrease(ShoppingCart shoppingCart) {
+        String key = KEY_PREFIX + shoppingCart.getUserId();
+
+        stringRedisTemplate.execute(DECREASE_SCRIPT, Collections.singletonList(key), field(shoppingCart), INFO_SUFFIX);
+    }
+
+    public void clean(Long userId) {
+        // Redis不随数据库事务回滚，下单时等订单提交后再清空
+        AfterCommit.run(() -> stringRedisTemplate.delete(KEY_PREFIX + userId));
+    }
+
+
+    /**
+     * 购物车中商品的field：菜品为 d_{dishId}_{口味}，套餐为 s_{setmealId}
+     * @param shoppingCart
+     * @return
+     */
+    private String field(ShoppingCart shoppingCart) {
+        if (shoppingCart.getDishId() != null) {
+            return "d_" + shoppingCart.getDishId() + "_" + (shoppingCart.getDishFlavor() == null ? "" : shoppingCart.getDishFlavor());
+        }
+
+        return "s_" + shoppingCart.getSetmealId();
+    }
+
+    private String toJson(ShoppingCart shoppingCart) {
+        ShoppingCart info = ShoppingCart.builder()
+                .name(shoppingCart.getName())
+                .dishId(shoppingCart.getDishId())
+                .setmealId(shoppingCart.getSetmealId())
+                .dishFlavor(shoppingCart.getDishFlavor())
+                .amount(shoppingCart.getAmount())
+                .image(shoppingCart.getImage())
+                .createTime(shoppingCart.getCreateTime())
+                .build();
+
+        try {
+            return objectMapper.writeValueAsString(info);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("购物车商品序列化失败", e);
+        }
+    }
+
+    private ShoppingCart fromJson(String json) {
+        try {
+            return objectMapper.readValue(json, ShoppingCart.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("购物车商品反序列化失败", e);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.sky.config;
+
+import com.sky.cache.CacheInvalidationBroadcaster;
+import com.sky.cache.TwoLevelCacheManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.BatchStrategies;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.Duration;
+
+
+/**
+ * 配置类：管理Spring Cache（本地缓存 + Redis二级缓存）及缓存失效通知
+ */
+
+@Configuration
+@Slf4j
+public class CacheConfiguration {
+
+    // 本地缓存每个缓存最多保存的条数
+    public static final long LOCAL_MAXIMUM_SIZE = 1000;
+
+    // 本地缓存过期时间（秒）
+    public static final long LOCAL_EXPIRE_SECONDS = 60;
+
+    // Redis二级缓存过期时间（分钟），漏掉的清理（如并发查询放回旧数据、预热失败）到期后自愈
+    public static final long REDIS_EXPIRE_MINUTES = 30;
+
+
+    @Bean
+    public CacheManager cacheManager(RedisConnectionFactory redisConnectionFactory,
+                                     CacheInvalidationBroadcaster cacheInvalidationBroadcaster,
+                                     RedisSerializer<Object> redisValueSerializer) {
+        log.info("开始创建二级缓存管理器...");
+
+        // allEntries清理时用scan分批删除，避免keys命令阻塞Redis
+        RedisCacheManager redisCacheManager = RedisCacheManager
+                .builder(RedisCacheWriter.nonLockingRedisCacheWriter(redisConnectionFactory, BatchStrategies.scan(1000)))
+                .cacheDefaults(RedisCacheConfiguration.defaultCacheConfig()
+                        .entryTtl(Duration.ofMinutes(REDIS_EXPIRE_MINUTES))
+                        .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(redisValueSerializer)))
+                .build();
+        redisCacheManager.afterPropertiesSet();
+
+        return new TwoLevelCacheManager(redisCacheManager, cacheInvalidationBroadcaster,
+                LOCAL_MAXIMUM_SIZE, LOCAL_EXPIRE_SECONDS);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                       CacheInvalidationBroadcaster cacheInvalidationBroadcaster) {
+        log.info("开始创建Redis消息监听容器...");
+
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+
+        // 订阅缓存失效通知
+        container.addMessageListener(cacheInvalidationBroadcaster, new ChannelTopic(CacheInvalidationBroadcaster.CHANNEL));
+
+        return container;
+    }
+
+}
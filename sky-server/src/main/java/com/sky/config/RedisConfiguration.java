@@ -1,12 +1,34 @@
 package com.sky.config;
 
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.databind.jsontype.PolymorphicTypeValidator;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer;
+import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
+import com.sky.cache.CompatibleRedisSerializer;
+import com.sky.json.JacksonObjectMapper;
+import com.sky.vo.DishVO;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.support.NullValue;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.util.List;
+
 
 /**
  * 配置类：管理Redis
@@ -16,6 +38,11 @@ import org.springframework.data.redis.serializer.StringRedisSerializer;
 @Slf4j
 public class RedisConfiguration {
 
+    // value的序列化方式：json（默认）或 jdk。两种格式读取时都兼容，可以随时切换或回退
+    @Value("${sky.redis.value-codec:json}")
+    private String valueCodec;
+
+
     @Bean
     public RedisTemplate redisTemplate(RedisConnectionFactory redisConnectionFactory) {
         log.info("开始创建redis模板对象...");
@@ -29,6 +56,12 @@ public class RedisConfiguration {
 
         // 设置Redis key的序列化器
         redisTemplate.setKeySerializer(new StringRedisSerializer());
+        redisTemplate.setHashKeySerializer(new StringRedisSerializer());
+
+        // 设置Redis value的序列化器
+        RedisSerializer<Object> valueSerializer = redisValueSerializer();
+        redisTemplate.setValueSerializer(valueSerializer);
+        redisTemplate.setHashValueSerializer(valueSerializer);
 
 
         return redisTemplate;
@@ -36,4 +69,90 @@ public class RedisConfiguration {
 
     }
 
+    /**
+     * 通用的value序列化器，同时用于Spring Cache
+     * json格式会带上类型信息，读取时能还原成原来的类型
+     * @return
+     */
+    @Bean
+    public RedisSerializer<Object> redisValueSerializer() {
+        log.info("Redis value序列化方式: {}", valueCodec);
+
+        if ("jdk".equals(valueCodec)) {
+            return new CompatibleRedisSerializer<>(new JdkSerializationRedisSerializer());
+        }
+
+        // 只允许还原项目自己的类和常用的JDK类型，Redis中的数据被篡改时不会实例化任意类
+        PolymorphicTypeValidator typeValidator = BasicPolymorphicTypeValidator.builder()
+                .allowIfSubType("com.sky.")
+                .allowIfSubType("java.util.")
+                .allowIfSubType("java.time.")
+                .allowIfSubType("java.math.")
+                .allowIfSubType(NullValue.class)
+                .build();
+
+        ObjectMapper objectMapper = cacheObjectMapper();
+        objectMapper.activateDefaultTyping(typeValidator, ObjectMapper.DefaultTyping.NON_FINAL, JsonTypeInfo.As.PROPERTY);
+        GenericJackson2JsonRedisSerializer.registerNullValueSerializer(objectMapper, null);
+
+        return new CompatibleRedisSerializer<>(new GenericJackson2JsonRedisSerializer(objectMapper));
+    }
+
+    /**
+     * 菜品缓存专用模板：value固定为List<DishVO>，json中不需要类型信息
+     * @param redisConnectionFactory
+     * @return
+     */
+    @Bean
+    public RedisTemplate<String, List<DishVO>> dishRedisTemplate(RedisConnectionFactory redisConnectionFactory) {
+        ObjectMapper objectMapper = cacheObjectMapper();
+        JavaType type = objectMapper.getTypeFactory().constructCollectionType(List.class, DishVO.class);
+
+        Jackson2JsonRedisSerializer<List<DishVO>> serializer = new Jackson2JsonRedisSerializer<>(type);
+        serializer.setObjectMapper(objectMapper);
+
+        RedisTemplate<String, List<DishVO>> redisTemplate = new RedisTemplate<>();
+        redisTemplate.setConnectionFactory(redisConnectionFactory);
+        redisTemplate.setKeySerializer(new StringRedisSerializer());
+        redisTemplate.setValueSerializer(new CompatibleRedisSerializer<>(serializer));
+
+        return redisTemplate;
+    }
+
+    /**
+     * 缓存使用的ObjectMapper：时间按ISO格式保存到秒（接口返回的格式只到分钟），
+     * 读取时兼容之前写入的“yyyy-MM-dd HH:mm”格式
+     * @return
+     */
+    private ObjectMapper cacheObjectMapper() {
+        DateTimeFormatter dateTimeReader = new DateTimeFormatterBuilder()
+                .append(DateTimeFormatter.ISO_LOCAL_DATE)
+                .optionalStart().appendLiteral('T').optionalEnd()
+                .optionalStart().appendLiteral(' ').optionalEnd()
+                .append(DateTimeFormatter.ISO_LOCAL_TIME)
+                .toFormatter();
+
+        ObjectMapper objectMapper = new JacksonObjectMapper();
+        objectMapper.registerModule(new SimpleModule()
+                .addSerializer(LocalDateTime.class, new LocalDateTimeSerializer(DateTimeFormatter.ISO_LOCAL_DATE_TIME))
+                .addDeserializer(LocalDateTime.class, new LocalDateTimeDeserializer(dateTimeReader)));
+
+        return objectMapper;
+    }
+
+    /**
+     * 二进制数据专用模板：value按原始字节存取（如导出的报表文件）
+     * @param redisConnectionFactory
+     * @return
+     */
+    @Bean
+    public RedisTemplate<String, byte[]> byteArrayRedisTemplate(RedisConnectionFactory redisConnectionFactory) {
+        RedisTemplate<String, byte[]> redisTemplate = new RedisTemplate<>();
+        redisTemplate.setConnectionFactory(redisConnectionFactory);
+        redisTemplate.setKeySerializer(new StringRedisSerializer());
+        redisTemplate.setValueSerializer(RedisSerializer.byteArray());
+
+        return redisTemplate;
+    }
+
 }
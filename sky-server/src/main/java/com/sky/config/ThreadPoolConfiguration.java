@@ -0,0 +1,87 @@
+package com.sky.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+
+/**
+ * 配置类：管理后台任务使用的线程池（有界队列，避免占用Tomcat工作线程）
+ */
+
+@Configuration
+@Slf4j
+public class ThreadPoolConfiguration {
+
+    /**
+     * 报表导出线程池
+     * @return
+     */
+    @Bean
+    public ThreadPoolTaskExecutor reportExportExecutor() {
+        log.info("开始创建报表导出线程池...");
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        // 生成Excel比较耗CPU和内存，同时只跑少量任务，其余排队
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(50);
+        executor.setThreadNamePrefix("report-export-");
+        // 队列满时默认抛出TaskRejectedException，由调用方提示稍后再试
+
+        return executor;
+    }
+
+    /**
+     * 缓存刷新线程池：后台重新加载过期的缓存
+     * @return
+     */
+    @Bean
+    public ThreadPoolTaskExecutor cacheRefreshExecutor() {
+        log.info("开始创建缓存刷新线程池...");
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("cache-refresh-");
+
+        return executor;
+    }
+
+    /**
+     * WebSocket消息发送线程池：只负责发起异步发送，发送结果在回调中处理
+     * @return
+     */
+    @Bean
+    public ThreadPoolTaskExecutor webSocketExecutor() {
+        log.info("开始创建WebSocket发送线程池...");
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("websocket-send-");
+
+        return executor;
+    }
+
+    /**
+     * 订单事件处理线程池：事务提交后批量处理订单事件，一个线程按顺序处理即可
+     * @return
+     */
+    @Bean
+    public ThreadPoolTaskExecutor orderEventExecutor() {
+        log.info("开始创建订单事件处理线程池...");
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(10);
+        executor.setThreadNamePrefix("order-event-");
+
+        return executor;
+    }
+
+}
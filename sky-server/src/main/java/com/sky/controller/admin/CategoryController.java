@@ -1,5 +1,6 @@
 package com.sky.controller.admin;
 
+import com.sky.cache.MenuSnapshotCache;
 import com.sky.dto.CategoryDTO;
 import com.sky.dto.CategoryPageQueryDTO;
 import com.sky.entity.Category;
@@ -25,6 +26,9 @@ public class CategoryController {
     @Autowired
     private CategoryService categoryService;
 
+    @Autowired
+    private MenuSnapshotCache menuSnapshotCache;
+
     /**
      * 新增分类
      * @param categoryDTO
@@ -35,6 +39,7 @@ public class CategoryController {
     public Result<String> save(@RequestBody CategoryDTO categoryDTO){
         log.info("新增分类：{}", categoryDTO);
         categoryService.save(categoryDTO);
+        menuSnapshotCache.bumpVersion();
         return Result.success();
     }
 
@@ -61,6 +66,7 @@ public class CategoryController {
     public Result<String> deleteById(Long id){
         log.info("删除分类：{}", id);
         categoryService.deleteById(id);
+        menuSnapshotCache.bumpVersion();
         return Result.success();
     }
 
@@ -73,6 +79,7 @@ public class CategoryController {
     @ApiOperation("修改分类")
     public Result<String> update(@RequestBody CategoryDTO categoryDTO){
         categoryService.update(categoryDTO);
+        menuSnapshotCache.bumpVersion();
         return Result.success();
     }
 
@@ -86,6 +93,7 @@ public class CategoryController {
     @ApiOperation("启用禁用分类")
     public Result<String> startOrStop(@PathVariable("status") Integer status, Long id){
         categoryService.startOrStop(status,id);
+        menuSnapshotCache.bumpVersion();
         return Result.success();
     }
 
@@ -1,6 +1,10 @@
 package com.sky.controller.admin;
 
 
+import com.sky.cache.DishCache;
+import com.sky.cache.MenuCacheWarmer;
+import com.sky.cache.MenuSnapshotCache;
+import com.sky.cache.ProductCatalog;
 import com.sky.dto.DishDTO;
 import com.sky.dto.DishPageQueryDTO;
 import com.sky.entity.Dish;
@@ -12,11 +16,10 @@ import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Collections;
 import java.util.List;
-import java.util.Set;
 
 /**
  * 菜品管理
@@ -32,21 +35,16 @@ public class DishController {
 
 
     @Autowired
-    private RedisTemplate redisTemplate;
+    private DishCache dishCache;
 
+    @Autowired
+    private MenuCacheWarmer menuCacheWarmer;
 
-    /**
-     * 清理Redis缓存数据
-     * @param pattern
-     */
-    private void cleanCache(String pattern) {
-        // 根据pattern获取对应匹配到的Redis中的所有key
-        Set keys = redisTemplate.keys(pattern);
-
-        // 删除这些key 及 对应的value
-        redisTemplate.delete(keys);
+    @Autowired
+    private MenuSnapshotCache menuSnapshotCache;
 
-    }
+    @Autowired
+    private ProductCatalog productCatalog;
 
 
 
@@ -64,9 +62,10 @@ public class DishController {
 
 
         // 菜品信息修改后，清理缓存数据
-        String redis_key = "dish_" + dishDTO.getCategoryId();
         // 将对应分类id数据全部清除，这样下次用户查询时是加入了新的菜品
-        cleanCache(redis_key);
+        dishCache.evict(dishDTO.getCategoryId());
+        menuSnapshotCache.bumpVersion();
+        menuCacheWarmer.warmUpAsync();
 
 
         return Result.success();
@@ -100,9 +99,12 @@ public class DishController {
         log.info("菜品批量删除：{}", ids);
 
         dishService.deleteBatch(ids);
+        productCatalog.evictDishes(ids);
 
-        // 修改完菜品数据后，清理Redish缓存 (直接把整个redis的数据清空)
-        cleanCache("dish_*");
+        // 修改完菜品数据后，清理Redish缓存 (直接把所有分类的菜品缓存清空)
+        dishCache.evictAll();
+        menuSnapshotCache.bumpVersion();
+        menuCacheWarmer.warmUpAsync();
 
         return Result.success();
     }
@@ -135,9 +137,12 @@ public class DishController {
         log.info("修改菜品：{}", dishDTO);
 
         dishService.updateWithFlavor(dishDTO);
+        productCatalog.evictDishes(Collections.singletonList(dishDTO.getId()));
 
         // 清除 全部 的缓存 (可能修改的是菜品的分类；修改分类的操作实际很少，所以就不复杂化处理判断是否修改了分类)
-        cleanCache("dish_*");
+        dishCache.evictAll();
+        menuSnapshotCache.bumpVersion();
+        menuCacheWarmer.warmUpAsync();
 
 
         return Result.success();
@@ -172,10 +177,13 @@ public class DishController {
         log.info("菜品启售停售:{}, {}", status, id);
 
         dishService.startOrStop(status, id);
+        productCatalog.evictDishes(Collections.singletonList(id));
 
 
         // 直接清除所有缓存 （也可以通过指定分类id删除对应的。但传入参数是菜品id，还需要再次查询数据库）
-        cleanCache("dish_*");
+        dishCache.evictAll();
+        menuSnapshotCache.bumpVersion();
+        menuCacheWarmer.warmUpAsync();
 
 
         return Result.success();
@@ -0,0 +1,37 @@
+package com.sky.controller.admin;
+
+import com.sky.job.JobRunner;
+import com.sky.result.Result;
+import com.sky.vo.JobStatsVO;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 定时任务
+ */
+@RestController
+@RequestMapping("/admin/job")
+@Slf4j
+@Api(tags = "定时任务相关接口")
+public class JobController {
+
+    @Autowired
+    private JobRunner jobRunner;
+
+    /**
+     * 查询当前节点的定时任务执行统计
+     * @return
+     */
+    @GetMapping("/stats")
+    @ApiOperation("查询定时任务执行统计")
+    public Result<List<JobStatsVO>> stats() {
+        return Result.success(jobRunner.getStats());
+    }
+}
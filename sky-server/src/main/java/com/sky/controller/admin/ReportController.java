@@ -2,6 +2,7 @@ package com.sky.controller.admin;
 
 
 import com.sky.result.Result;
+import com.sky.service.ReportExportService;
 import com.sky.service.ReportService;
 import com.sky.vo.*;
 import io.swagger.annotations.Api;
@@ -9,11 +10,11 @@ import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
@@ -29,6 +30,9 @@ public class ReportController {
     @Autowired
     private ReportService reportService;
 
+    @Autowired
+    private ReportExportService reportExportService;
+
 
     /**
      * 营业额统计
@@ -107,18 +111,91 @@ public class ReportController {
 
 
     /**
-     * 导出Excel报表
+     * 导出Excel报表（不传日期时默认导出近30天）
      * @return
      */
     @GetMapping("/export")
     @ApiOperation("导出Excel报表")
-    public Result export(HttpServletResponse response) {
-        log.info("导出Excel报表接口");
+    public Result export(@DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate begin,
+                         @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate end,
+                         HttpServletResponse response) throws IOException {
+        log.info("导出Excel报表接口: {}, {}", begin, end);
+
+        if (begin == null && end == null) {
+            reportService.exportBusinessData(response);
+        } else {
+            // 与后台导出任务使用相同的日期范围限制
+            reportExportService.checkDateRange(begin, end);
+
+            ServletOutputStream outputStream = response.getOutputStream();
 
-        reportService.exportBusinessData(response);
+            reportService.exportBusinessData(begin, end, outputStream);
+
+            outputStream.flush();
+            outputStream.close();
+        }
 
         return Result.success();
     }
 
 
+    /**
+     * 提交报表导出任务，报表在后台线程生成
+     * @param begin
+     * @param end
+     * @return
+     */
+    @PostMapping("/export/jobs")
+    @ApiOperation("提交报表导出任务")
+    public Result<ReportExportJobVO> submitExportJob(@DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate begin,
+                                                     @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate end) {
+        log.info("提交报表导出任务: {}, {}", begin, end);
+
+        ReportExportJobVO reportExportJobVO = reportExportService.submit(begin, end);
+
+        return Result.success(reportExportJobVO);
+    }
+
+
+    /**
+     * 查询报表导出任务状态
+     * @param jobId
+     * @return
+     */
+    @GetMapping("/export/jobs/{jobId}")
+    @ApiOperation("查询报表导出任务状态")
+    public Result<ReportExportJobVO> getExportJob(@PathVariable String jobId) {
+        log.info("查询报表导出任务状态: {}", jobId);
+
+        ReportExportJobVO reportExportJobVO = reportExportService.getJob(jobId);
+
+        return Result.success(reportExportJobVO);
+    }
+
+
+    /**
+     * 下载已生成的报表
+     * @param jobId
+     * @param response
+     */
+    @GetMapping("/export/jobs/{jobId}/file")
+    @ApiOperation("下载已生成的报表")
+    public void downloadExportFile(@PathVariable String jobId, HttpServletResponse response) throws IOException {
+        log.info("下载报表: {}", jobId);
+
+        ReportExportJobVO job = reportExportService.getJob(jobId);
+        byte[] file = reportExportService.getFile(jobId);
+
+        response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+        response.setHeader("Content-Disposition",
+                "attachment; filename=report_" + job.getBegin() + "_" + job.getEnd() + ".xlsx");
+        response.setContentLength(file.length);
+
+        ServletOutputStream outputStream = response.getOutputStream();
+        outputStream.write(file);
+        outputStream.flush();
+        outputStream.close();
+    }
+
+
 }
@@ -1,6 +1,9 @@
 package com.sky.controller.admin;
 
 
+import com.sky.cache.MenuCacheWarmer;
+import com.sky.cache.MenuSnapshotCache;
+import com.sky.cache.ProductCatalog;
 import com.sky.dto.SetmealDTO;
 import com.sky.dto.SetmealPageQueryDTO;
 import com.sky.entity.Setmeal;
@@ -12,10 +15,10 @@ import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Collections;
 import java.util.List;
 
 
@@ -32,6 +35,15 @@ public class SetmealController {
     @Autowired
     private SetmealService setmealService;
 
+    @Autowired
+    private MenuCacheWarmer menuCacheWarmer;
+
+    @Autowired
+    private MenuSnapshotCache menuSnapshotCache;
+
+    @Autowired
+    private ProductCatalog productCatalog;
+
     /**
      * 新增套餐
      * @param setmealDTO
@@ -39,13 +51,17 @@ public class SetmealController {
      */
     @PostMapping
     @ApiOperation("新增套餐")
-    @CacheEvict(cacheNames = "setmealCache", key = "#setmealDTO.categoryId")
     public Result save(@RequestBody SetmealDTO setmealDTO) {
         log.info("新增套餐");
 
         // 涉及到 setmeal表和setmeal_dish表（两张）
         setmealService.saveWithDish(setmealDTO);
 
+        // 修改已提交：清理套餐缓存，更新菜单版本号，再在后台重新加载菜单
+        menuCacheWarmer.evictSetmealCache(setmealDTO.getCategoryId());
+        menuSnapshotCache.bumpVersion();
+        menuCacheWarmer.warmUpAsync();
+
 
         return Result.success();
     }
@@ -74,11 +90,16 @@ public class SetmealController {
      */
     @DeleteMapping
     @ApiOperation("根据id批量删除套餐")
-    @CacheEvict(cacheNames = "setmealCache", allEntries = true)
     public Result delete(@RequestParam List<Long> ids) {
         log.info("根据id批量删除套餐: {}", ids);
 
         setmealService.deleteBatch(ids);
+        productCatalog.evictSetmeals(ids);
+
+        // 修改已提交：清理套餐缓存，更新菜单版本号，再在后台重新加载菜单
+        menuCacheWarmer.evictSetmealCache(null);
+        menuSnapshotCache.bumpVersion();
+        menuCacheWarmer.warmUpAsync();
 
         return Result.success();
     }
@@ -108,11 +129,16 @@ public class SetmealController {
      */
     @PutMapping
     @ApiOperation("修改套餐")
-    @CacheEvict(cacheNames = "setmealCache", allEntries = true)
     public Result update(@RequestBody SetmealDTO setmealDTO) {
         log.info("修改套餐: {}", setmealDTO);
 
         setmealService.update(setmealDTO);
+        productCatalog.evictSetmeals(Collections.singletonList(setmealDTO.getId()));
+
+        // 修改已提交：清理套餐缓存，更新菜单版本号，再在后台重新加载菜单
+        menuCacheWarmer.evictSetmealCache(null);
+        menuSnapshotCache.bumpVersion();
+        menuCacheWarmer.warmUpAsync();
 
         return Result.success();
     }
@@ -125,11 +151,16 @@ public class SetmealController {
      */
     @PostMapping("/status/{status}")
     @ApiOperation("套餐启售停售")
-    @CacheEvict(cacheNames = "setmealCache", allEntries = true)
     public Result startOrStop(@PathVariable Integer status, Long id) {
         log.info("套餐启售停售: {}, {}", status, id);
 
         setmealService.startOrStop(status, id);
+        productCatalog.evictSetmeals(Collections.singletonList(id));
+
+        // 修改已提交：清理套餐缓存，更新菜单版本号，再在后台重新加载菜单
+        menuCacheWarmer.evictSetmealCache(null);
+        menuSnapshotCache.bumpVersion();
+        menuCacheWarmer.warmUpAsync();
 
         return Result.success();
     }
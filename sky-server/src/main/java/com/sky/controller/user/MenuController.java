@@ -0,0 +1,68 @@
+package com.sky.controller.user;
+
+import com.sky.cache.MenuSnapshot;
+import com.sky.cache.MenuSnapshotCache;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/user/menu")
+@Slf4j
+@Api(tags = "C端-菜单接口")
+public class MenuController {
+
+    @Autowired
+    private MenuSnapshotCache menuSnapshotCache;
+
+
+    /**
+     * 查询完整菜单（分类、菜品、口味、套餐）
+     * 菜单没有变化时返回304，客户端继续使用本地的菜单
+     * @param request
+     * @param response
+     */
+    @GetMapping("/snapshot")
+    @ApiOperation("查询完整菜单")
+    public void snapshot(HttpServletRequest request, HttpServletResponse response) throws IOException {
+
+        MenuSnapshot snapshot = menuSnapshotCache.getSnapshot();
+
+        String acceptEncoding = request.getHeader("Accept-Encoding");
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+
+        String etag = gzip ? snapshot.getGzipEtag() : snapshot.getEtag();
+
+        response.setHeader("ETag", etag);
+        response.setHeader("Cache-Control", "no-cache");
+        response.setHeader("Vary", "Accept-Encoding");
+
+        // 客户端的菜单就是当前版本
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null && ifNoneMatch.contains(etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        byte[] body = gzip ? snapshot.getGzipBody() : snapshot.getBody();
+
+        response.setContentType("application/json;charset=UTF-8");
+        if (gzip) {
+            response.setHeader("Content-Encoding", "gzip");
+        }
+        response.setContentLength(body.length);
+
+        ServletOutputStream outputStream = response.getOutputStream();
+        outputStream.write(body);
+        outputStream.flush();
+    }
+}
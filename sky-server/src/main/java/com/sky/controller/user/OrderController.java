@@ -71,10 +71,12 @@ public class OrderController {
      */
     @GetMapping("/historyOrders")
     @ApiOperation("分页查询历史订单")
-    public Result<PageResult> page(int page, int pageSize, Integer status) {
-        log.info("分页查询历史订单:{}, {},{}", page, pageSize, status);
+    public Result<PageResult> page(@RequestParam(defaultValue = "1") int page,
+                                   @RequestParam(defaultValue = "10") int pageSize, Integer status,
+                                   String cursor, Boolean withTotal) {
+        log.info("分页查询历史订单:{}, {},{}, {}", page, pageSize, status, cursor);
 
-        PageResult pageResult = orderService.pageQuery4User(page, pageSize, status);
+        PageResult pageResult = orderService.pageQuery4User(page, pageSize, status, cursor, withTotal);
 
         return Result.success(pageResult);
 
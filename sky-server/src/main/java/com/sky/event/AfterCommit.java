@@ -0,0 +1,35 @@
+package com.sky.event;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 在当前事务提交后执行（如修改Redis、累加统计数据），事务回滚时不执行；没有事务时立即执行
+ * 注意：提交后仍在原事务的线程和连接上执行，需要写数据库的操作要声明 REQUIRES_NEW 开启新事务
+ */
+@Slf4j
+public class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    public static void run(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                // 事务已经提交，这里失败不能再影响业务结果，只记录日志
+                try {
+                    action.run();
+                } catch (Exception e) {
+                    log.error("事务提交后的操作执行失败", e);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,46 @@
+package com.sky.event;
+
+import com.alibaba.fastjson.JSON;
+import com.sky.entity.OrderEvent;
+import com.sky.websocket.NotificationBus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 商家端提醒：下单、支付成功时来单提醒，用户催单时催单提醒
+ */
+@Component
+public class MerchantNotificationHandler implements OrderEventHandler {
+
+    // 商家端消息类型 1来单提醒 2客户催单
+    private static final int NEW_ORDER = 1;
+    private static final int REMINDER = 2;
+
+    @Autowired
+    private NotificationBus notificationBus;
+
+
+    public void handle(List<OrderEvent> events) {
+        for (OrderEvent event : events) {
+            int type;
+            if (OrderEvent.SUBMITTED.equals(event.getType()) || OrderEvent.PAID.equals(event.getType())) {
+                type = NEW_ORDER;
+            } else if (OrderEvent.REMINDER.equals(event.getType())) {
+                type = REMINDER;
+            } else {
+                continue;
+            }
+
+            Map map = new HashMap<>();
+            map.put("type", type);
+            map.put("orderId", event.getOrderId());
+            map.put("content", "订单号: " + event.getOrderNumber());
+
+            notificationBus.publish(JSON.toJSONString(map));
+        }
+    }
+}
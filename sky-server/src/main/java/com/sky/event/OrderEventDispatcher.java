@@ -0,0 +1,129 @@
+package com.sky.event;
+
+import com.sky.entity.OrderEvent;
+import com.sky.mapper.OrderEventOutboxMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * 订单事件分发：事务提交后事件放入队列，由后台线程按批交给各个OrderEventHandler处理
+ */
+@Component
+@Slf4j
+public class OrderEventDispatcher {
+
+    private static final int QUEUE_CAPACITY = 10000;
+
+    // 每批最多处理的事件数
+    private static final int BATCH_SIZE = 100;
+
+    private final BlockingQueue<OrderEvent> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+    // 是否有线程正在处理队列
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+
+    @Autowired(required = false)
+    private List<OrderEventHandler> handlers = Collections.emptyList();
+
+    @Autowired
+    private ThreadPoolTaskExecutor orderEventExecutor;
+
+    @Autowired
+    private OrderEventOutboxMapper orderEventOutboxMapper;
+
+    @Value("${sky.order-event.outbox:false}")
+    private boolean outbox;
+
+
+    /**
+     * 事务提交后收到事件（没有事务时立即收到）
+     * @param event
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOrderEvent(OrderEvent event) {
+        if (!queue.offer(event)) {
+            // 开启发件箱时由OrderEventOutboxRelay补发
+            log.warn("订单事件队列已满，丢弃事件: {}", event);
+            return;
+        }
+
+        scheduleDrain();
+    }
+
+    /**
+     * 处理一批事件，全部处理器都成功后才标记发件箱中的事件为已处理
+     * @param events
+     */
+    public void dispatch(List<OrderEvent> events) {
+        boolean success = true;
+
+        for (OrderEventHandler handler : handlers) {
+            try {
+                handler.handle(events);
+            } catch (Exception e) {
+                success = false;
+                log.error("订单事件处理失败: {}", handler.getClass().getSimpleName(), e);
+            }
+        }
+
+        if (outbox && success) {
+            List<Long> ids = events.stream()
+                    .map(OrderEvent::getId)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+
+            if (!ids.isEmpty()) {
+                orderEventOutboxMapper.markSent(ids, LocalDateTime.now());
+            }
+        }
+    }
+
+    private void scheduleDrain() {
+        if (queue.isEmpty() || !draining.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            orderEventExecutor.execute(this::drain);
+        } catch (TaskRejectedException e) {
+            // 事件留在队列里，下一个事件到来时再处理
+            draining.set(false);
+            log.warn("订单事件线程池已满，事件延后处理");
+        }
+    }
+
+    private void drain() {
+        try {
+            List<OrderEvent> batch = new ArrayList<>(BATCH_SIZE);
+            while (queue.drainTo(batch, BATCH_SIZE) > 0) {
+                try {
+                    dispatch(batch);
+                } catch (Exception e) {
+                    log.error("订单事件处理失败", e);
+                }
+                batch.clear();
+            }
+        } finally {
+            draining.set(false);
+        }
+
+        // 置为空闲之前可能又有事件入队
+        scheduleDrain();
+    }
+}
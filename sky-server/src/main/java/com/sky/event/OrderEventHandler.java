@@ -0,0 +1,17 @@
+package com.sky.event;
+
+import com.sky.entity.OrderEvent;
+
+import java.util.List;
+
+/**
+ * 订单事件处理器：事务提交后在后台线程中批量调用
+ */
+public interface OrderEventHandler {
+
+    /**
+     * 处理一批订单事件（开启发件箱时同一事件可能被处理多次）
+     * @param events
+     */
+    void handle(List<OrderEvent> events);
+}
@@ -0,0 +1,67 @@
+package com.sky.event;
+
+import com.sky.entity.OrderEvent;
+import com.sky.job.JobRunner;
+import com.sky.mapper.OrderEventOutboxMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 发件箱补发：重新处理事务提交后没有处理成功的订单事件（进程退出、队列已满、处理器失败等）
+ */
+@Component
+@ConditionalOnProperty(prefix = "sky.order-event", name = "outbox", havingValue = "true")
+@Slf4j
+public class OrderEventOutboxRelay {
+
+    // 事件创建多久之后还未处理才补发（秒），给正常投递留出时间
+    private static final long RETRY_DELAY_SECONDS = 30;
+
+    private static final int BATCH_SIZE = 100;
+
+    @Autowired
+    private OrderEventOutboxMapper orderEventOutboxMapper;
+
+    @Autowired
+    private OrderEventDispatcher orderEventDispatcher;
+
+    @Autowired
+    private JobRunner jobRunner;
+
+
+    /**
+     * 补发未处理的事件 (每过 10 s 自动执行)
+     */
+    @Scheduled(fixedDelay = 10000)
+    public void relay() {
+        // 多个节点同时补发会重复处理同一批事件，只由一个节点执行
+        jobRunner.run("relayOrderEvent", this::relayUnsent);
+    }
+
+    private void relayUnsent() {
+        LocalDateTime time = LocalDateTime.now().minusSeconds(RETRY_DELAY_SECONDS);
+
+        List<OrderEvent> events = orderEventOutboxMapper.listUnsent(time, BATCH_SIZE);
+        if (events == null || events.isEmpty()) {
+            return;
+        }
+
+        log.info("补发订单事件: {}条", events.size());
+        orderEventDispatcher.dispatch(events);
+    }
+
+    /**
+     * 清理一天前已处理的事件 (每天凌晨4点自动执行)
+     */
+    @Scheduled(cron = "0 0 4 * * ?")
+    public void clean() {
+        jobRunner.run("cleanOrderEvent", JobRunner.currentTick(),
+                () -> orderEventOutboxMapper.deleteSentBefore(LocalDateTime.now().minusDays(1)));
+    }
+}
@@ -0,0 +1,39 @@
+package com.sky.event;
+
+import com.sky.entity.OrderEvent;
+import com.sky.mapper.OrderEventOutboxMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * 发布订单事件：在业务事务中调用，事务提交后才会投递给OrderEventDispatcher
+ */
+@Component
+public class OrderEventPublisher {
+
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Autowired
+    private OrderEventOutboxMapper orderEventOutboxMapper;
+
+    // 是否把事件写入发件箱表，保证事务提交后一定会被处理
+    @Value("${sky.order-event.outbox:false}")
+    private boolean outbox;
+
+
+    public void publish(OrderEvent event) {
+        event.setCreateTime(LocalDateTime.now());
+
+        if (outbox) {
+            // 和订单修改在同一个事务中写入，事务回滚时事件也一起回滚
+            orderEventOutboxMapper.insert(event);
+        }
+
+        applicationEventPublisher.publishEvent(event);
+    }
+}
@@ -0,0 +1,32 @@
+package com.sky.event;
+
+import com.sky.entity.OrderEvent;
+import com.sky.task.PaymentTimeoutTask;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 支付超时登记：订单支付或取消后移出延时队列（下单时由submitOrder在事务提交后直接放入）
+ */
+@Component
+public class PaymentTimeoutHandler implements OrderEventHandler {
+
+    @Autowired
+    private PaymentTimeoutTask paymentTimeoutTask;
+
+
+    public void handle(List<OrderEvent> events) {
+        List<Long> finished = new ArrayList<>();
+
+        for (OrderEvent event : events) {
+            if (OrderEvent.PAID.equals(event.getType()) || OrderEvent.CANCELLED.equals(event.getType())) {
+                finished.add(event.getOrderId());
+            }
+        }
+
+        paymentTimeoutTask.remove(finished);
+    }
+}
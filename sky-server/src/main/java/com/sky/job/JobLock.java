@@ -0,0 +1,46 @@
+package com.sky.job;
+
+/**
+ * 定时任务锁：多个节点同时触发同一个定时任务时，只有拿到租约的节点执行
+ * 执行期间持有者定时续租；持有者宕机后不再续租，租约到期自动失效，由其他节点接手
+ */
+public interface JobLock {
+
+    /**
+     * 尝试获取任务租约
+     * @param job 任务名称
+     * @param leaseMillis 租约时长，超过后自动失效
+     * @return 是否获取成功
+     */
+    boolean tryAcquire(String job, long leaseMillis);
+
+    /**
+     * 延长自己持有的租约
+     * @param job 任务名称
+     * @param leaseMillis 从现在起的租约时长
+     * @return 租约是否仍由自己持有
+     */
+    boolean renew(String job, long leaseMillis);
+
+    /**
+     * 释放自己持有的租约
+     * @param job 任务名称
+     */
+    void release(String job);
+
+    /**
+     * 任务的某个周期是否已经执行完成
+     * @param job 任务名称
+     * @param tick 周期标识
+     * @return
+     */
+    boolean isDone(String job, String tick);
+
+    /**
+     * 记录任务的某个周期已执行完成
+     * @param job 任务名称
+     * @param tick 周期标识
+     * @param ttlMillis 记录保留时长
+     */
+    void markDone(String job, String tick, long ttlMillis);
+}
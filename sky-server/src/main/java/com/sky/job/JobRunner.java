@@ -0,0 +1,243 @@
+package com.sky.job;
+
+import com.sky.vo.JobStatsVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 定时任务执行器：拿到任务租约才执行，执行期间定时续租，并记录每个任务的执行次数和耗时。
+ * 带周期标识的任务执行成功后记录该周期已完成；没拿到租约的节点记下这个周期，
+ * 持有者中途宕机（租约到期且周期未完成）时由这些节点补执行
+ */
+@Component
+@Slf4j
+public class JobRunner {
+
+    // 租约时长，执行期间每过三分之一续租一次；持有者宕机后最多这么久由其他节点接手
+    private static final long LEASE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    // 周期完成记录的保留时长
+    private static final long DONE_TTL_MILLIS = TimeUnit.DAYS.toMillis(2);
+
+    // 任务名称 -> 执行统计
+    private final Map<String, JobStatsVO> stats = new ConcurrentHashMap<>();
+
+    // 任务名称 -> 其他节点正在执行、等待确认完成的周期（只保留最新的周期）
+    private final Map<String, PendingRun> pendingRuns = new ConcurrentHashMap<>();
+
+    // 续租线程
+    private final ScheduledExecutorService renewExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "job-lease-renew");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    private JobLock jobLock;
+
+
+    /**
+     * 当前的周期标识：取最接近的整分钟，各节点时钟有少量偏差时得到相同的周期
+     * （定时任务都在整分钟触发）
+     * @return
+     */
+    public static String currentTick() {
+        return LocalDateTime.now().plusSeconds(30).truncatedTo(ChronoUnit.MINUTES).toString();
+    }
+
+    /**
+     * 执行定时任务，每个周期只由一个节点执行一次
+     * @param job 任务名称
+     * @param tick 周期标识，见currentTick
+     * @param task
+     */
+    public void run(String job, String tick, Runnable task) {
+        execute(job, tick, task);
+    }
+
+    /**
+     * 执行高频任务（如每隔几秒执行）：同一时间只有一个节点执行，不记录周期也不补执行
+     * @param job 任务名称
+     * @param task
+     */
+    public void run(String job, Runnable task) {
+        execute(job, null, task);
+    }
+
+    /**
+     * 补执行其他节点没有完成的周期 (每过 1 min 自动执行)
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void retryPending() {
+        for (PendingRun pendingRun : pendingRuns.values()) {
+            if (pendingRuns.remove(pendingRun.job, pendingRun)) {
+                log.info("检查任务{}周期{}是否已完成", pendingRun.job, pendingRun.tick);
+                execute(pendingRun.job, pendingRun.tick, pendingRun.task);
+            }
+        }
+    }
+
+    /**
+     * 记录一次任务执行（不需要租约、每个节点都执行的后台任务也在这里记录，如菜单缓存预热）
+     * @param job
+     * @param duration 耗时（毫秒）
+     * @param success
+     */
+    public void record(String job, long duration, boolean success) {
+        JobStatsVO jobStats = getJobStats(job);
+
+        synchronized (jobStats) {
+            jobStats.setRuns(jobStats.getRuns() + 1);
+            if (!success) {
+                jobStats.setFailures(jobStats.getFailures() + 1);
+            }
+            jobStats.setLastDurationMillis(duration);
+            jobStats.setMaxDurationMillis(Math.max(jobStats.getMaxDurationMillis(), duration));
+            jobStats.setTotalDurationMillis(jobStats.getTotalDurationMillis() + duration);
+            jobStats.setLastFinishTime(LocalDateTime.now());
+        }
+
+        log.info("任务{}执行{}，耗时{}ms", job, success ? "完成" : "失败", duration);
+    }
+
+    /**
+     * 本节点各定时任务的执行统计
+     * @return
+     */
+    public List<JobStatsVO> getStats() {
+        List<JobStatsVO> list = new ArrayList<>();
+
+        for (JobStatsVO jobStats : stats.values()) {
+            synchronized (jobStats) {
+                list.add(JobStatsVO.builder()
+                        .job(jobStats.getJob())
+                        .runs(jobStats.getRuns())
+                        .skipped(jobStats.getSkipped())
+                        .failures(jobStats.getFailures())
+                        .lastDurationMillis(jobStats.getLastDurationMillis())
+                        .maxDurationMillis(jobStats.getMaxDurationMillis())
+                        .totalDurationMillis(jobStats.getTotalDurationMillis())
+                        .lastFinishTime(jobStats.getLastFinishTime())
+                        .build());
+            }
+        }
+
+        return list;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        renewExecutor.shutdownNow();
+    }
+
+
+    private void execute(String job, String tick, Runnable task) {
+        try {
+            if (tick != null && jobLock.isDone(job, tick)) {
+                return;
+            }
+
+            if (!jobLock.tryAcquire(job, LEASE_MILLIS)) {
+                skipped(job, tick, task);
+                return;
+            }
+        } catch (Exception e) {
+            log.error("获取任务租约失败，跳过本次执行: {}", job, e);
+            skipped(job, tick, task);
+            return;
+        }
+
+        // 拿到租约后再确认一次，上一个持有者可能刚刚完成
+        if (tick != null && jobLock.isDone(job, tick)) {
+            jobLock.release(job);
+            return;
+        }
+
+        // 执行期间定时续租，任务执行时间超过租约时长也不会被其他节点同时执行
+        ScheduledFuture<?> renewal = renewExecutor.scheduleAtFixedRate(() -> renew(job),
+                LEASE_MILLIS / 3, LEASE_MILLIS / 3, TimeUnit.MILLISECONDS);
+
+        long start = System.currentTimeMillis();
+        boolean success = false;
+        try {
+            task.run();
+            success = true;
+
+            if (tick != null) {
+                jobLock.markDone(job, tick, DONE_TTL_MILLIS);
+                // 本次执行已覆盖之前等待确认的周期
+                pendingRuns.remove(job);
+            }
+        } finally {
+            renewal.cancel(false);
+            record(job, System.currentTimeMillis() - start, success);
+
+            try {
+                jobLock.release(job);
+            } catch (Exception e) {
+                // 释放失败时租约到期后自动失效
+                log.error("释放任务租约失败: {}", job, e);
+            }
+        }
+    }
+
+    private void renew(String job) {
+        try {
+            if (!jobLock.renew(job, LEASE_MILLIS)) {
+                log.error("任务{}的租约已失效，其他节点可能同时在执行", job);
+            }
+        } catch (Exception e) {
+            log.error("任务租约续租失败: {}", job, e);
+        }
+    }
+
+    /**
+     * 其他节点在执行：记下这个周期，之后确认它是否完成
+     */
+    private void skipped(String job, String tick, Runnable task) {
+        JobStatsVO jobStats = getJobStats(job);
+        synchronized (jobStats) {
+            jobStats.setSkipped(jobStats.getSkipped() + 1);
+        }
+
+        if (tick != null) {
+            pendingRuns.put(job, new PendingRun(job, tick, task));
+        }
+    }
+
+    private JobStatsVO getJobStats(String job) {
+        return stats.computeIfAbsent(job, name -> JobStatsVO.builder().job(name).build());
+    }
+
+    /**
+     * 等待确认完成的周期
+     */
+    private static class PendingRun {
+
+        private final String job;
+
+        private final String tick;
+
+        private final Runnable task;
+
+        PendingRun(String job, String tick, Runnable task) {
+            this.job = job;
+            this.tick = tick;
+            this.task = task;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.sky.job;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 单节点任务锁：租约和已完成的周期保存在内存中，只适用于单实例部署和测试
+ */
+@Component
+@ConditionalOnProperty(prefix = "sky.job", name = "lock", havingValue = "local")
+public class LocalJobLock implements JobLock {
+
+    // 任务名称 -> 租约到期时间
+    private final Map<String, Long> leases = new ConcurrentHashMap<>();
+
+    // 任务名称_周期 -> 记录到期时间
+    private final Map<String, Long> done = new ConcurrentHashMap<>();
+
+
+    public boolean tryAcquire(String job, long leaseMillis) {
+        long now = System.currentTimeMillis();
+        long expireAt = now + leaseMillis;
+
+        boolean[] acquired = new boolean[1];
+
+        // 没有租约或租约已过期时才能获取
+        leases.compute(job, (name, old) -> {
+            if (old != null && old > now) {
+                return old;
+            }
+            acquired[0] = true;
+            return expireAt;
+        });
+
+        return acquired[0];
+    }
+
+    public boolean renew(String job, long leaseMillis) {
+        long now = System.currentTimeMillis();
+
+        // 租约已过期（可能已被重新获取）时不能续租
+        Long expireAt = leases.computeIfPresent(job, (name, old) -> old > now ? now + leaseMillis : old);
+
+        return expireAt != null && expireAt > now;
+    }
+
+    public void release(String job) {
+        leases.remove(job);
+    }
+
+    public boolean isDone(String job, String tick) {
+        Long expireAt = done.get(job + "_" + tick);
+
+        return expireAt != null && expireAt > System.currentTimeMillis();
+    }
+
+    public void markDone(String job, String tick, long ttlMillis) {
+        long now = System.currentTimeMillis();
+
+        // 顺便清理过期的记录
+        done.values().removeIf(expireAt -> expireAt <= now);
+        done.put(job + "_" + tick, now + ttlMillis);
+    }
+}
@@ -0,0 +1,67 @@
+package com.sky.job;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于Redis的任务锁（默认）：job_lock_{任务名称} 的值为持有者的节点id，过期时间即租约时长；
+ * 已完成的周期记录为 job_done_{任务名称}_{周期}
+ */
+@Component
+@ConditionalOnProperty(prefix = "sky.job", name = "lock", havingValue = "redis", matchIfMissing = true)
+public class RedisJobLock implements JobLock {
+
+    private static final String KEY_PREFIX = "job_lock_";
+
+    private static final String DONE_PREFIX = "job_done_";
+
+    // 只续租自己持有的租约
+    private static final DefaultRedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) ~= ARGV[1] then return 0 end " +
+            "return redis.call('pexpire', KEYS[1], ARGV[2])", Long.class);
+
+    // 只释放自己持有的租约
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) ~= ARGV[1] then return 0 end " +
+            "return redis.call('del', KEYS[1])", Long.class);
+
+    // 当前节点id
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+
+    public boolean tryAcquire(String job, long leaseMillis) {
+        Boolean acquired = stringRedisTemplate.opsForValue()
+                .setIfAbsent(KEY_PREFIX + job, nodeId, leaseMillis, TimeUnit.MILLISECONDS);
+
+        return Boolean.TRUE.equals(acquired);
+    }
+
+    public boolean renew(String job, long leaseMillis) {
+        Long renewed = stringRedisTemplate.execute(RENEW_SCRIPT, Collections.singletonList(KEY_PREFIX + job),
+                nodeId, String.valueOf(leaseMillis));
+
+        return renewed != null && renewed == 1;
+    }
+
+    public void release(String job) {
+        stringRedisTemplate.execute(RELEASE_SCRIPT, Collections.singletonList(KEY_PREFIX + job), nodeId);
+    }
+
+    public boolean isDone(String job, String tick) {
+        return Boolean.TRUE.equals(stringRedisTemplate.hasKey(DONE_PREFIX + job + "_" + tick));
+    }
+
+    public void markDone(String job, String tick, long ttlMillis) {
+        stringRedisTemplate.opsForValue().set(DONE_PREFIX + job + "_" + tick, nodeId, ttlMillis, TimeUnit.MILLISECONDS);
+    }
+}
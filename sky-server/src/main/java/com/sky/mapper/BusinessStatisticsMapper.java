@@ -0,0 +1,41 @@
+package com.sky.mapper;
+
+import com.sky.entity.BusinessStatistics;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Mapper
+public interface BusinessStatisticsMapper {
+
+    /**
+     * 批量插入每日汇总数据，已存在的日期直接覆盖
+     * @param statisticsList
+     */
+    void insertOrUpdateBatch(List<BusinessStatistics> statisticsList);
+
+    /**
+     * 在某一天的汇总数据上累加增量（不存在则插入）
+     * @param statistics 各字段为增量
+     */
+    void increase(BusinessStatistics statistics);
+
+    /**
+     * 查询日期范围内（包含两端）的汇总数据
+     * @param begin
+     * @param end
+     * @return
+     */
+    @Select("select * from business_statistics where date between #{begin} and #{end} order by date")
+    List<BusinessStatistics> list(LocalDate begin, LocalDate end);
+
+    /**
+     * 统计某一天之前的用户总数
+     * @param date
+     * @return
+     */
+    @Select("select ifnull(sum(new_users), 0) from business_statistics where date < #{date}")
+    Integer sumNewUsersBefore(LocalDate date);
+}
@@ -0,0 +1,40 @@
+package com.sky.mapper;
+
+import com.sky.entity.OrderEvent;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Mapper;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Mapper
+public interface OrderEventOutboxMapper {
+
+    /**
+     * 保存订单事件（和订单修改在同一个事务中）
+     * @param orderEvent
+     */
+    void insert(OrderEvent orderEvent);
+
+    /**
+     * 查询创建时间早于指定时间、还未处理的事件
+     * @param time
+     * @param limit
+     * @return
+     */
+    List<OrderEvent> listUnsent(LocalDateTime time, int limit);
+
+    /**
+     * 批量标记为已处理
+     * @param ids
+     * @param sentTime
+     */
+    void markSent(List<Long> ids, LocalDateTime sentTime);
+
+    /**
+     * 删除指定时间之前已处理的事件
+     * @param time
+     */
+    @Delete("delete from order_event_outbox where status = 1 and sent_time < #{time}")
+    void deleteSentBefore(LocalDateTime time);
+}
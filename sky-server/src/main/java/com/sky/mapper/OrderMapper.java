@@ -1,7 +1,9 @@
 package com.sky.mapper;
 
 import com.github.pagehelper.Page;
+import com.sky.dto.DailyStatisticsDTO;
 import com.sky.dto.GoodsSalesDTO;
+import com.sky.dto.OrderStatusCountDTO;
 import com.sky.dto.OrdersPageQueryDTO;
 import com.sky.entity.Orders;
 import org.apache.ibatis.annotations.Mapper;
@@ -53,6 +55,20 @@ public interface OrderMapper {
      */
     Page<Orders> pageQuery(OrdersPageQueryDTO ordersPageQueryDTO);
 
+    /**
+     * 订单游标分页查询，按(order_time, id)倒序，最多返回pageSize + 1条
+     * @param ordersPageQueryDTO
+     * @return
+     */
+    List<Orders> cursorQuery(OrdersPageQueryDTO ordersPageQueryDTO);
+
+    /**
+     * 按分页查询条件统计订单数量
+     * @param ordersPageQueryDTO
+     * @return
+     */
+    Long countByCondition(OrdersPageQueryDTO ordersPageQueryDTO);
+
     /**
      * 根据订单id（主键）查询订单信息
      * @param id
@@ -62,22 +78,56 @@ public interface OrderMapper {
     Orders getById(Long id);
 
     /**
-     * 根据订单状态查询数量
+     * 根据订单状态、下单时间查询订单
      * @param status
+     * @param time
      * @return
      */
-    @Select("select count(id) from orders where status = #{status}")
-    Integer countStatus(Integer status);
+    @Select("select * from orders where status = #{status} and order_time < #{time}")
+    List<Orders> getByStatusAndOrdertimeLT(Integer status, LocalDateTime time);
 
+    /**
+     * 根据订单状态、下单时间查询id大于lastId的订单id，按id顺序最多返回limit条
+     * @param status
+     * @param time
+     * @param lastId
+     * @param limit
+     * @return
+     */
+    @Select("select id from orders where status = #{status} and order_time < #{time} and id > #{lastId} order by id limit #{limit}")
+    List<Long> getIdsByStatusAndOrdertimeLT(Integer status, LocalDateTime time, Long lastId, int limit);
 
     /**
-     * 根据订单状态、下单时间查询订单
+     * 根据订单状态、下单时间查询id大于lastId的订单（只查id、下单时间、金额），按id顺序最多返回limit条
      * @param status
      * @param time
+     * @param lastId
+     * @param limit
      * @return
      */
-    @Select("select * from orders where status = #{status} and order_time < #{time}")
-    List<Orders> getByStatusAndOrdertimeLT(Integer status, LocalDateTime time);
+    @Select("select id, order_time, amount from orders where status = #{status} and order_time < #{time} and id > #{lastId} order by id limit #{limit}")
+    List<Orders> getByStatusAndOrdertimeLTAfterId(Integer status, LocalDateTime time, Long lastId, int limit);
+
+    /**
+     * 批量取消订单：只修改仍处于status状态的订单，重复执行不会重复修改
+     * @param ids
+     * @param status 订单当前应处于的状态
+     * @param newStatus 取消后的状态，即Orders.CANCELLED
+     * @param cancelReason
+     * @param cancelTime
+     * @return 实际修改的行数
+     */
+    int cancelBatch(List<Long> ids, Integer status, Integer newStatus, String cancelReason, LocalDateTime cancelTime);
+
+    /**
+     * 批量完成订单：只修改仍处于status状态的订单
+     * @param ids
+     * @param status 订单当前应处于的状态
+     * @param newStatus 完成后的状态，即Orders.COMPLETED
+     * @param deliveryTime
+     * @return 实际修改的行数
+     */
+    int completeBatch(List<Long> ids, Integer status, Integer newStatus, LocalDateTime deliveryTime);
 
 
     /**
@@ -94,6 +144,21 @@ public interface OrderMapper {
      */
     Integer countByMap(Map map);
 
+    /**
+     * 按订单状态分组统计订单数量
+     * @param begin 下单时间晚于begin的订单，为null时不限下单时间
+     * @param statuses 只统计这些状态的订单，为null时统计全部状态
+     * @return
+     */
+    List<OrderStatusCountDTO> countGroupByStatus(LocalDateTime begin, List<Integer> statuses);
+
+    /**
+     * 按天分组统计订单数、有效订单数和营业额（一次查询覆盖整个时间段）
+     * @param map begin、end 为下单时间范围，status 为有效订单的状态
+     * @return
+     */
+    List<DailyStatisticsDTO> countGroupByDate(Map map);
+
 
     /**
      * 查询销量排名top10
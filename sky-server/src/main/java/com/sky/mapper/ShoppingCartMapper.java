@@ -54,4 +54,31 @@ public interface ShoppingCartMapper {
      * @param shoppingCartList
      */
     void insertBatch(List<ShoppingCart> shoppingCartList);
+
+    /**
+     * 购物车中商品数量加一
+     * @param shoppingCart 用户id、菜品id、口味、套餐id
+     * @return 更新的行数，商品不在购物车中时为0
+     */
+    int increaseNumber(ShoppingCart shoppingCart);
+
+    /**
+     * 购物车中商品数量减一，只更新数量大于1的商品
+     * @param shoppingCart 用户id、菜品id、口味、套餐id
+     * @return 更新的行数
+     */
+    int decreaseNumber(ShoppingCart shoppingCart);
+
+    /**
+     * 删除数量为1的商品（数量减到0）
+     * @param shoppingCart 用户id、菜品id、口味、套餐id
+     * @return 删除的行数
+     */
+    int deleteLast(ShoppingCart shoppingCart);
+
+    /**
+     * 批量加入购物车，商品已存在时累加数量（依赖唯一索引uk_user_item）
+     * @param shoppingCartList
+     */
+    void insertOrIncreaseBatch(List<ShoppingCart> shoppingCartList);
 }
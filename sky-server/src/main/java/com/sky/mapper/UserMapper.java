@@ -1,10 +1,12 @@
 package com.sky.mapper;
 
 
+import com.sky.dto.DailyStatisticsDTO;
 import com.sky.entity.User;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Select;
 
+import java.util.List;
 import java.util.Map;
 
 @Mapper
@@ -41,4 +43,11 @@ public interface UserMapper {
      * @return
      */
     Integer countByMap(Map map);
+
+    /**
+     * 按天分组统计新增用户数
+     * @param map
+     * @return
+     */
+    List<DailyStatisticsDTO> countGroupByDate(Map map);
 }
@@ -0,0 +1,63 @@
+package com.sky.service;
+
+import com.sky.entity.BusinessStatistics;
+import com.sky.entity.Orders;
+import com.sky.entity.User;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface BusinessStatisticsService {
+
+    /**
+     * 根据订单表和用户表重新统计日期范围内每天的营业数据（每日结算、数据修正）
+     * @param begin
+     * @param end
+     */
+    void refresh(LocalDate begin, LocalDate end);
+
+    /**
+     * 用户下单，累加下单当天的订单数（在下单事务提交后调用）
+     * @param orders
+     */
+    void orderSubmitted(Orders orders);
+
+    /**
+     * 订单完成，累加下单当天的有效订单数和营业额
+     * @param orders
+     */
+    void orderCompleted(Orders orders);
+
+    /**
+     * 批量完成订单，按下单日期分组累加有效订单数和营业额
+     * @param ordersList
+     */
+    void ordersCompleted(List<Orders> ordersList);
+
+    /**
+     * 已完成的订单被取消，扣减下单当天的有效订单数和营业额
+     * @param orders
+     */
+    void completedOrderCancelled(Orders orders);
+
+    /**
+     * 新用户注册，累加注册当天的新增用户数
+     * @param user
+     */
+    void userRegistered(User user);
+
+    /**
+     * 查询日期范围内每天的营业数据，没有数据的日期补0
+     * @param begin
+     * @param end
+     * @return 与日期一一对应
+     */
+    List<BusinessStatistics> list(LocalDate begin, LocalDate end);
+
+    /**
+     * 查询某一天之前注册的用户总数
+     * @param date
+     * @return
+     */
+    Integer getUserCountBefore(LocalDate date);
+}
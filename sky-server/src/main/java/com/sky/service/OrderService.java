@@ -1,6 +1,7 @@
 package com.sky.service;
 
 import com.sky.dto.*;
+import com.sky.entity.Orders;
 import com.sky.result.PageResult;
 import com.sky.vo.OrderPaymentVO;
 import com.sky.vo.OrderStatisticsVO;
@@ -8,6 +9,9 @@ import com.sky.vo.OrderSubmitVO;
 import com.sky.vo.OrderVO;
 import org.apache.ibatis.annotations.Update;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 public interface OrderService {
 
     /**
@@ -37,9 +41,11 @@ public interface OrderService {
      * @param page
      * @param pageSize
      * @param status
+     * @param cursor 游标分页时传入，第一页为空字符串；为null时按页码分页
+     * @param withTotal 游标分页时是否统计总数
      * @return
      */
-    PageResult pageQuery4User(int page, int pageSize, Integer status);
+    PageResult pageQuery4User(int page, int pageSize, Integer status, String cursor, Boolean withTotal);
 
     /**
      * 查询订单详情
@@ -109,6 +115,14 @@ public interface OrderService {
      */
     void complete(Long id);
 
+    /**
+     * 批量完成派送中的订单，并在同一事务中累加营业数据
+     * @param ordersList
+     * @param deliveryTime
+     * @return 实际完成的订单数
+     */
+    int completeDeliveryBatch(List<Orders> ordersList, LocalDateTime deliveryTime);
+
     /**
      * 用户催单
      * @param id
@@ -0,0 +1,16 @@
+package com.sky.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+public interface OrderStatusCountService {
+
+    /**
+     * 按订单状态统计订单数量（结果缓存几秒，工作台各页面轮询时共用）
+     * @param begin 下单时间晚于begin的订单，为null时不限下单时间
+     * @param statuses 只统计这些状态的订单，为null时统计全部状态；不限下单时间时应指定，避免扫描全部历史订单
+     * @return 订单状态 -> 订单数量，没有订单的状态不在结果中
+     */
+    Map<Integer, Integer> countByStatus(LocalDateTime begin, List<Integer> statuses);
+}
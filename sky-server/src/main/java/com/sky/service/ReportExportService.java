@@ -0,0 +1,37 @@
+package com.sky.service;
+
+import com.sky.vo.ReportExportJobVO;
+
+import java.time.LocalDate;
+
+public interface ReportExportService {
+
+    /**
+     * 提交报表导出任务
+     * @param begin
+     * @param end
+     * @return
+     */
+    ReportExportJobVO submit(LocalDate begin, LocalDate end);
+
+    /**
+     * 校验导出的日期范围
+     * @param begin
+     * @param end
+     */
+    void checkDateRange(LocalDate begin, LocalDate end);
+
+    /**
+     * 查询导出任务状态
+     * @param jobId
+     * @return
+     */
+    ReportExportJobVO getJob(String jobId);
+
+    /**
+     * 获取已生成的报表文件
+     * @param jobId
+     * @return
+     */
+    byte[] getFile(String jobId);
+}
@@ -3,6 +3,8 @@ package com.sky.service;
 import com.sky.vo.*;
 
 import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
 
 public interface ReportService {
@@ -44,8 +46,17 @@ public interface ReportService {
 
 
     /**
-     * 导出Excel报表
+     * 导出近30天的Excel报表
      * @param response
      */
     void exportBusinessData(HttpServletResponse response);
+
+
+    /**
+     * 导出指定日期范围的Excel报表
+     * @param begin
+     * @param end
+     * @param outputStream
+     */
+    void exportBusinessData(LocalDate begin, LocalDate end, OutputStream outputStream) throws IOException;
 }
@@ -0,0 +1,189 @@
+package com.sky.service.impl;
+
+import com.sky.dto.DailyStatisticsDTO;
+import com.sky.entity.BusinessStatistics;
+import com.sky.entity.Orders;
+import com.sky.entity.User;
+import com.sky.mapper.BusinessStatisticsMapper;
+import com.sky.mapper.OrderMapper;
+import com.sky.mapper.UserMapper;
+import com.sky.service.BusinessStatisticsService;
+import com.sky.utils.TimeSeriesUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Service
+@Slf4j
+public class BusinessStatisticsServiceImpl implements BusinessStatisticsService {
+
+    @Autowired
+    private BusinessStatisticsMapper businessStatisticsMapper;
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    @Autowired
+    private UserMapper userMapper;
+
+
+    /**
+     * 根据订单表和用户表重新统计日期范围内每天的营业数据
+     * @param begin
+     * @param end
+     */
+    public void refresh(LocalDate begin, LocalDate end) {
+
+        Map map = new HashMap<>();
+        map.put("begin", LocalDateTime.of(begin, LocalTime.MIN));
+        map.put("end", LocalDateTime.of(end, LocalTime.MAX));
+
+        // 订单、用户各按天分组查询一次
+        Map<LocalDate, DailyStatisticsDTO> userMap = userMapper.countGroupByDate(map).stream()
+                .collect(Collectors.toMap(DailyStatisticsDTO::getDate, x -> x));
+
+        map.put("status", Orders.COMPLETED);
+        Map<LocalDate, DailyStatisticsDTO> orderMap = orderMapper.countGroupByDate(map).stream()
+                .collect(Collectors.toMap(DailyStatisticsDTO::getDate, x -> x));
+
+        List<BusinessStatistics> statisticsList = new ArrayList<>();
+
+        for (LocalDate date : TimeSeriesUtil.dateRange(begin, end)) {
+            DailyStatisticsDTO orderStatistics = orderMap.get(date);
+            DailyStatisticsDTO userStatistics = userMap.get(date);
+
+            Double turnover = orderStatistics == null ? 0.0 : orderStatistics.getTurnover();
+            Integer validOrderCount = orderStatistics == null ? 0 : orderStatistics.getValidOrderCount();
+
+            statisticsList.add(BusinessStatistics.builder()
+                    .date(date)
+                    .turnover(turnover)
+                    .validOrderCount(validOrderCount)
+                    .orderCount(orderStatistics == null ? 0 : orderStatistics.getOrderCount())
+                    .newUsers(userStatistics == null ? 0 : userStatistics.getNewUsers())
+                    .unitPrice(validOrderCount == 0 ? 0.0 : turnover / validOrderCount)
+                    .updateTime(LocalDateTime.now())
+                    .build());
+        }
+
+        businessStatisticsMapper.insertOrUpdateBatch(statisticsList);
+
+        log.info("营业数据汇总完成: {} ~ {}", begin, end);
+    }
+
+    /**
+     * 用户下单，累加下单当天的订单数（在下单事务提交后调用，单独开启事务）
+     * @param orders
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void orderSubmitted(Orders orders) {
+        increase(orders.getOrderTime().toLocalDate(), 0.0, 0, 1, 0);
+    }
+
+    /**
+     * 订单完成，累加下单当天的有效订单数和营业额（报表按下单时间归属）
+     * @param orders
+     */
+    public void orderCompleted(Orders orders) {
+        Double amount = orders.getAmount() == null ? 0.0 : orders.getAmount().doubleValue();
+
+        increase(orders.getOrderTime().toLocalDate(), amount, 1, 0, 0);
+    }
+
+    /**
+     * 批量完成订单，按下单日期分组累加有效订单数和营业额，每个日期只更新一次
+     * @param ordersList
+     */
+    public void ordersCompleted(List<Orders> ordersList) {
+        Map<LocalDate, List<Orders>> dateMap = ordersList.stream()
+                .collect(Collectors.groupingBy(orders -> orders.getOrderTime().toLocalDate()));
+
+        dateMap.forEach((date, list) -> {
+            double amount = list.stream()
+                    .mapToDouble(orders -> orders.getAmount() == null ? 0.0 : orders.getAmount().doubleValue())
+                    .sum();
+
+            increase(date, amount, list.size(), 0, 0);
+        });
+    }
+
+    /**
+     * 已完成的订单被取消，扣减下单当天的有效订单数和营业额
+     * @param orders
+     */
+    public void completedOrderCancelled(Orders orders) {
+        Double amount = orders.getAmount() == null ? 0.0 : orders.getAmount().doubleValue();
+
+        increase(orders.getOrderTime().toLocalDate(), -amount, -1, 0, 0);
+    }
+
+    /**
+     * 新用户注册，累加注册当天的新增用户数
+     * @param user
+     */
+    public void userRegistered(User user) {
+        increase(user.getCreateTime().toLocalDate(), 0.0, 0, 0, 1);
+    }
+
+    /**
+     * 查询日期范围内每天的营业数据，没有数据的日期补0
+     * @param begin
+     * @param end
+     * @return
+     */
+    public List<BusinessStatistics> list(LocalDate begin, LocalDate end) {
+
+        List<LocalDate> dateList = TimeSeriesUtil.dateRange(begin, end);
+
+        Map<LocalDate, BusinessStatistics> statisticsMap = businessStatisticsMapper.list(begin, end).stream()
+                .collect(Collectors.toMap(BusinessStatistics::getDate, x -> x));
+
+        return dateList.stream()
+                .map(date -> statisticsMap.getOrDefault(date, BusinessStatistics.builder()
+                        .date(date)
+                        .turnover(0.0)
+                        .validOrderCount(0)
+                        .orderCount(0)
+                        .newUsers(0)
+                        .unitPrice(0.0)
+                        .build()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 查询某一天之前注册的用户总数
+     * @param date
+     * @return
+     */
+    public Integer getUserCountBefore(LocalDate date) {
+        return businessStatisticsMapper.sumNewUsersBefore(date);
+    }
+
+
+    /**
+     * 在某一天的汇总数据上累加增量
+     */
+    private void increase(LocalDate date, Double turnover, Integer validOrderCount, Integer orderCount, Integer newUsers) {
+        BusinessStatistics statistics = BusinessStatistics.builder()
+                .date(date)
+                .turnover(turnover)
+                .validOrderCount(validOrderCount)
+                .orderCount(orderCount)
+                .newUsers(newUsers)
+                .updateTime(LocalDateTime.now())
+                .build();
+
+        businessStatisticsMapper.increase(statistics);
+    }
+}
@@ -1,26 +1,33 @@
 package com.sky.service.impl;
 
-import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
 import com.github.pagehelper.Page;
 import com.github.pagehelper.PageHelper;
+import com.sky.cache.ProductCatalog;
+import com.sky.cache.ProductInfo;
+import com.sky.cart.CartStore;
 import com.sky.constant.MessageConstant;
 import com.sky.context.BaseContext;
 import com.sky.dto.*;
 import com.sky.entity.*;
+import com.sky.event.AfterCommit;
+import com.sky.event.OrderEventPublisher;
 import com.sky.exception.AddressBookBusinessException;
 import com.sky.exception.OrderBusinessException;
 import com.sky.exception.ShoppingCartBusinessException;
 import com.sky.mapper.*;
+import com.sky.result.CursorPageResult;
 import com.sky.result.PageResult;
 import com.sky.result.Result;
+import com.sky.service.BusinessStatisticsService;
 import com.sky.service.OrderService;
+import com.sky.service.OrderStatusCountService;
+import com.sky.task.PaymentTimeoutTask;
 import com.sky.utils.WeChatPayUtil;
 import com.sky.vo.OrderPaymentVO;
 import com.sky.vo.OrderStatisticsVO;
 import com.sky.vo.OrderSubmitVO;
 import com.sky.vo.OrderVO;
-import com.sky.websocket.WebSocketServer;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.weaver.ast.Or;
 import org.springframework.beans.BeanUtils;
@@ -31,17 +38,29 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class OrderServiceImpl implements OrderService {
 
+    // 游标分页未传pageSize时的默认条数
+    private static final int DEFAULT_PAGE_SIZE = 10;
+
+    // 游标分页单页最多条数
+    private static final int MAX_PAGE_SIZE = 100;
+
 
     @Autowired
     private OrderMapper orderMapper;
@@ -50,7 +69,10 @@ public class OrderServiceImpl implements OrderService {
     private AddressBookMapper addressBookMapper;
 
     @Autowired
-    private ShoppingCartMapper shoppingCartMapper;
+    private CartStore cartStore;
+
+    @Autowired
+    private ProductCatalog productCatalog;
 
     @Autowired
     private OrderDetailMapper orderDetailMapper;
@@ -63,7 +85,16 @@ public class OrderServiceImpl implements OrderService {
 
 
     @Autowired
-    private WebSocketServer webSocketServer;
+    private OrderEventPublisher orderEventPublisher;
+
+    @Autowired
+    private BusinessStatisticsService businessStatisticsService;
+
+    @Autowired
+    private OrderStatusCountService orderStatusCountService;
+
+    @Autowired
+    private PaymentTimeoutTask paymentTimeoutTask;
 
 
     /**
@@ -84,10 +115,8 @@ public class OrderServiceImpl implements OrderService {
         }
 
         Long userId = BaseContext.getCurrentId();
-        ShoppingCart shoppingCart = new ShoppingCart();
-        shoppingCart.setUserId(userId);
         // 查询购物车
-        List<ShoppingCart> shoppingCartList = shoppingCartMapper.list(shoppingCart);
+        List<ShoppingCart> shoppingCartList = cartStore.list(userId);
 
         if(shoppingCartList == null || shoppingCartList.size() == 0) {
             // 购物车为空
@@ -120,6 +149,12 @@ public class OrderServiceImpl implements OrderService {
 
         orderMapper.insert(orders);  // 要获取id
 
+        // 累加当天的订单数：事务提交后再更新，避免下单事务一直持有当天统计行的行锁
+        AfterCommit.run(() -> businessStatisticsService.orderSubmitted(orders));
+
+        // 订单提交后放入支付超时队列
+        AfterCommit.run(() -> paymentTimeoutTask.schedule(orders.getId(), orders.getOrderTime()));
+
 
         // 构造订单明细数据
         List<OrderDetail> orderDetailList = new ArrayList<>();
@@ -139,7 +174,7 @@ public class OrderServiceImpl implements OrderService {
         orderDetailMapper.insertBatch(orderDetailList);
 
         // 清空购物车
-        shoppingCartMapper.deleteByUserId(BaseContext.getCurrentId());
+        cartStore.clean(userId);
 
         // 封装返回结果
         OrderSubmitVO orderSubmitVO = OrderSubmitVO.builder()
@@ -150,16 +185,8 @@ public class OrderServiceImpl implements OrderService {
                 .build();
 
 
-        // 通过WebSocket实现来单提醒
-        Map map = new HashMap<>();
-        map.put("type", 1);
-        map.put("orderId", orders.getId());
-        map.put("content", "订单号: " + orders.getNumber());
-
-
-        webSocketServer.sendToAllClient(JSON.toJSONString(map));
-
-
+        // 来单提醒在事务提交后发送
+        orderEventPublisher.publish(OrderEvent.of(OrderEvent.SUBMITTED, orders));
 
         return orderSubmitVO;
     }
@@ -219,14 +246,8 @@ public class OrderServiceImpl implements OrderService {
         orderMapper.update(orders);
 
 
-        // 通过WebSocket实现来单提醒
-        Map map = new HashMap<>();
-        map.put("type", 1);
-        map.put("orderId", orders.getId());
-        map.put("content", "订单号: " + outTradeNo);
-
-
-        webSocketServer.sendToAllClient(JSON.toJSONString(map));
+        // 来单提醒
+        orderEventPublisher.publish(OrderEvent.of(OrderEvent.PAID, ordersDB));
 
     }
 
@@ -235,17 +256,27 @@ public class OrderServiceImpl implements OrderService {
      * @param pageNum
      * @param pageSize
      * @param status
+     * @param cursor
+     * @param withTotal
      * @return
      */
-    public PageResult pageQuery4User(int pageNum, int pageSize, Integer status) {
-
-        PageHelper.startPage(pageNum, pageSize);
+    public PageResult pageQuery4User(int pageNum, int pageSize, Integer status, String cursor, Boolean withTotal) {
 
         // 封装参数
         OrdersPageQueryDTO ordersPageQueryDTO = new OrdersPageQueryDTO();
 
         ordersPageQueryDTO.setUserId(BaseContext.getCurrentId());
         ordersPageQueryDTO.setStatus(status);
+        ordersPageQueryDTO.setPageSize(pageSize);
+        ordersPageQueryDTO.setCursor(cursor);
+        ordersPageQueryDTO.setWithTotal(withTotal);
+
+        // 游标分页
+        if (cursor != null) {
+            return cursorPageQuery(ordersPageQueryDTO, this::getOrderVOListWithDetail);
+        }
+
+        PageHelper.startPage(pageNum, pageSize);
 
         // 分页查询
         Page<Orders> page = orderMapper.pageQuery(ordersPageQueryDTO);
@@ -253,21 +284,7 @@ public class OrderServiceImpl implements OrderService {
         List<OrderVO> list = new ArrayList<>();
 
         if(page != null && page.getTotal() > 0) {
-            for(Orders orders : page) {
-                // 获取订单id
-                Long orderId = orders.getId();
-
-                // 向订单明细表查出对应的订单详情
-                List<OrderDetail> orderDetailList = orderDetailMapper.getByOrderId(orderId);
-
-                OrderVO orderVO = new OrderVO();
-                BeanUtils.copyProperties(orders, orderVO);
-
-                orderVO.setOrderDetailList(orderDetailList);
-
-                list.add(orderVO);
-
-            }
+            list = getOrderVOListWithDetail(page.getResult());
         }
 
 
@@ -350,6 +367,8 @@ public class OrderServiceImpl implements OrderService {
         //
         orderMapper.update(orders);
 
+        orderEventPublisher.publish(OrderEvent.of(OrderEvent.CANCELLED, orderDb));
+
     }
 
 
@@ -371,6 +390,19 @@ public class OrderServiceImpl implements OrderService {
                 ShoppingCart shoppingCart = new ShoppingCart();
                 //   (id不要复制)
                 BeanUtils.copyProperties(x, shoppingCart, "id");
+
+                // 使用商品当前的名称、图片和价格，而不是下单时的
+                ProductInfo productInfo = x.getDishId() != null
+                        ? productCatalog.getDish(x.getDishId())
+                        : productCatalog.getSetmeal(x.getSetmealId());
+                // 商品已删除，与直接加入购物车一样提示，不按下单时的信息加入
+                if (productInfo == null) {
+                    throw new ShoppingCartBusinessException(MessageConstant.PRODUCT_NOT_FOUND);
+                }
+                shoppingCart.setName(productInfo.getName());
+                shoppingCart.setImage(productInfo.getImage());
+                shoppingCart.setAmount(productInfo.getPrice());
+
                 //
                 shoppingCart.setUserId(userId);
                 shoppingCart.setCreateTime(LocalDateTime.now());
@@ -379,8 +411,8 @@ public class OrderServiceImpl implements OrderService {
             }
         ).collect(Collectors.toList());
 
-        // 批量插入
-        shoppingCartMapper.insertBatch(shoppingCartList);
+        // 批量加入购物车
+        cartStore.addAll(shoppingCartList);
 
 
     }
@@ -392,6 +424,11 @@ public class OrderServiceImpl implements OrderService {
      */
     public PageResult conditionSearch(OrdersPageQueryDTO ordersPageQueryDTO) {
 
+        // 游标分页
+        if (ordersPageQueryDTO.getCursor() != null) {
+            return cursorPageQuery(ordersPageQueryDTO, this::getOrderVOList);
+        }
+
         //
         PageHelper.startPage(ordersPageQueryDTO.getPage(), ordersPageQueryDTO.getPageSize());
 
@@ -399,7 +436,7 @@ public class OrderServiceImpl implements OrderService {
         Page<Orders> page = orderMapper.pageQuery(ordersPageQueryDTO);
 
         // 因为返回结果还要求有订单菜品，所以是OrderVO
-        List<OrderVO> orderVOList = getOrderVOList(page);
+        List<OrderVO> orderVOList = getOrderVOList(page.getResult());
 
         return new PageResult(page.getTotal(), orderVOList);
     }
@@ -410,14 +447,16 @@ public class OrderServiceImpl implements OrderService {
      */
     public OrderStatisticsVO statistics() {
 
-        // 分别查询出待接单、待派送、派送中的订单数量 并返回
+        // 一次查询出待接单、待派送、派送中的订单数量 并返回（只统计这三种状态，不扫描已完成、已取消的历史订单）
+        Map<Integer, Integer> statusCount = orderStatusCountService.countByStatus(null,
+                Arrays.asList(Orders.TO_BE_CONFIRMED, Orders.CONFIRMED, Orders.DELIVERY_IN_PROGRESS));
 
         // 待接单
-        Integer toBeConfirmed = orderMapper.countStatus(Orders.TO_BE_CONFIRMED);
-        // 待派送
-        Integer deliveryInProgress = orderMapper.countStatus(Orders.DELIVERY_IN_PROGRESS);
+        Integer toBeConfirmed = statusCount.getOrDefault(Orders.TO_BE_CONFIRMED, 0);
         // 派送中
-        Integer confirmed = orderMapper.countStatus(Orders.CONFIRMED);
+        Integer deliveryInProgress = statusCount.getOrDefault(Orders.DELIVERY_IN_PROGRESS, 0);
+        // 待派送
+        Integer confirmed = statusCount.getOrDefault(Orders.CONFIRMED, 0);
 
         OrderStatisticsVO orderStatisticsVO = new OrderStatisticsVO();
 
@@ -494,17 +533,36 @@ public class OrderServiceImpl implements OrderService {
         //
         orderMapper.update(orders);
 
+        orderEventPublisher.publish(OrderEvent.of(OrderEvent.CANCELLED, orderDB));
+
     }
 
     /**
      * 取消订单
      * @param ordersCancelDTO
      */
+    @Transactional
     public void cancel(OrdersCancelDTO ordersCancelDTO) {
 
         //
         Orders orderDB = orderMapper.getById(ordersCancelDTO.getId());
 
+        if (orderDB == null) {
+            throw new OrderBusinessException(MessageConstant.ORDER_NOT_FOUND);
+        }
+
+        // 设置取消原因、取消时间；只修改仍处于查询时状态的订单，与完成、支付等并发修改时不会改错，也不会重复扣减营业数据
+        int rows = orderMapper.cancelBatch(Collections.singletonList(orderDB.getId()), orderDB.getStatus(), Orders.CANCELLED,
+                ordersCancelDTO.getCancelReason(), LocalDateTime.now());
+
+        if (rows != 1) {
+            throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
+        }
+
+        // 已完成的订单已累加过有效订单数和营业额，取消后扣减
+        if (Orders.COMPLETED.equals(orderDB.getStatus())) {
+            businessStatisticsService.completedOrderCancelled(orderDB);
+        }
 
         // 判断支付状态
         Integer payStatus = orderDB.getPayStatus();
@@ -527,19 +585,7 @@ public class OrderServiceImpl implements OrderService {
 
         }
 
-        //
-        Orders orders = new Orders();
-
-        orders.setId(orderDB.getId());
-        orders.setStatus(Orders.CANCELLED);
-
-        // 设置取消原因、取消时间
-        orders.setCancelReason(ordersCancelDTO.getCancelReason());
-
-        orders.setCancelTime(LocalDateTime.now());
-
-        //
-        orderMapper.update(orders);
+        orderEventPublisher.publish(OrderEvent.of(OrderEvent.CANCELLED, orderDB));
 
     }
 
@@ -569,6 +615,7 @@ public class OrderServiceImpl implements OrderService {
      * 完成订单
      * @param id
      */
+    @Transactional
     public void complete(Long id) {
 
         Orders orderDB = orderMapper.getById(id);
@@ -578,14 +625,44 @@ public class OrderServiceImpl implements OrderService {
             throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
         }
 
-        Orders orders = new Orders();
+        // 只修改仍处于“派送中”的订单：重复点击或与定时任务同时完成时，只有一次修改成功
+        int rows = orderMapper.completeBatch(Collections.singletonList(id), Orders.DELIVERY_IN_PROGRESS, Orders.COMPLETED, LocalDateTime.now());
 
-        orders.setId(id);
-        orders.setStatus(Orders.COMPLETED);
-        //
-        orders.setDeliveryTime(LocalDateTime.now());
+        if (rows != 1) {
+            throw new OrderBusinessException(MessageConstant.ORDER_STATUS_ERROR);
+        }
 
-        orderMapper.update(orders);
+        // 累加有效订单数和营业额
+        businessStatisticsService.orderCompleted(orderDB);
+    }
+
+    /**
+     * 批量完成派送中的订单，并在同一事务中累加营业数据
+     * 订单状态和营业数据一起提交或回滚，任务中途失败时不会出现订单已完成但营业额未累加
+     * @param ordersList
+     * @param deliveryTime
+     * @return
+     */
+    @Transactional
+    public int completeDeliveryBatch(List<Orders> ordersList, LocalDateTime deliveryTime) {
+        List<Long> ids = ordersList.stream().map(Orders::getId).collect(Collectors.toList());
+
+        // 设置订单为“已完成”
+        int rows = orderMapper.completeBatch(ids, Orders.DELIVERY_IN_PROGRESS, Orders.COMPLETED, deliveryTime);
+
+        if (rows == ordersList.size()) {
+            businessStatisticsService.ordersCompleted(ordersList);
+        } else {
+            // 部分订单已被商家手动完成（已经累加过），按订单表重新统计这批订单所在的日期
+            LocalDate begin = ordersList.stream().map(orders -> orders.getOrderTime().toLocalDate())
+                    .min(LocalDate::compareTo).get();
+            LocalDate end = ordersList.stream().map(orders -> orders.getOrderTime().toLocalDate())
+                    .max(LocalDate::compareTo).get();
+
+            businessStatisticsService.refresh(begin, end);
+        }
+
+        return rows;
     }
 
     /**
@@ -602,33 +679,28 @@ public class OrderServiceImpl implements OrderService {
         }
 
 
-        // 基于WebSocket催单
-        Map map = new HashMap<>();
-        map.put("type", 2);
-        map.put("orderId", id);
-        map.put("content", "订单号: " + orders.getNumber());
-
-
-        webSocketServer.sendToAllClient(JSON.toJSONString(map));
+        // 催单提醒
+        orderEventPublisher.publish(OrderEvent.of(OrderEvent.REMINDER, orders));
 
 
     }
 
 
-    private List<OrderVO> getOrderVOList(Page<Orders> page) {
+    private List<OrderVO> getOrderVOList(List<Orders> ordersList) {
         // 封装订单的菜品信息
         List<OrderVO> orderVOList = new ArrayList<>();
 
-        List<Orders> ordersList = page.getResult();
-
 
         if(!CollectionUtils.isEmpty(ordersList)) {
+            // 一次查出本页所有订单的明细，再按订单id分组
+            Map<Long, List<OrderDetail>> orderDetailMap = getOrderDetailMap(ordersList);
+
             for(Orders orders: ordersList) {
                 //
                 OrderVO orderVO = new OrderVO();
                 BeanUtils.copyProperties(orders, orderVO);
 
-                String orderDishes = getOrderDishesStr(orders);
+                String orderDishes = getOrderDishesStr(orderDetailMap.getOrDefault(orders.getId(), new ArrayList<>()));
 
                 // 将订单菜品信息封装到orderVO
                 orderVO.setOrderDishes(orderDishes);
@@ -641,11 +713,9 @@ public class OrderServiceImpl implements OrderService {
     }
 
 
-    private String getOrderDishesStr(Orders orders) {
+    private String getOrderDishesStr(List<OrderDetail> orderDetailList) {
         // 将该订单对应的所有菜品信息拼接在一起返回
 
-        List<OrderDetail> orderDetailList = orderDetailMapper.getByOrderId(orders.getId());
-
         List<String> orderDishList = orderDetailList.stream().map(
                 x->{
                    String orderDish = x.getName() + "*" + x.getNumber() + ";";
@@ -658,5 +728,120 @@ public class OrderServiceImpl implements OrderService {
     }
 
 
+    /**
+     * 批量查询订单明细，并按订单id分组
+     * @param ordersList
+     * @return
+     */
+    private Map<Long, List<OrderDetail>> getOrderDetailMap(List<Orders> ordersList) {
+
+        if (CollectionUtils.isEmpty(ordersList)) {
+            return new HashMap<>();
+        }
+
+        List<Long> orderIds = ordersList.stream().map(Orders::getId).collect(Collectors.toList());
+
+        List<OrderDetail> orderDetailList = orderDetailMapper.getByOrderIds(orderIds);
+
+        return orderDetailList.stream().collect(Collectors.groupingBy(OrderDetail::getOrderId));
+    }
+
+
+    /**
+     * 封装订单及其订单明细
+     * @param ordersList
+     * @return
+     */
+    private List<OrderVO> getOrderVOListWithDetail(List<Orders> ordersList) {
+
+        List<OrderVO> list = new ArrayList<>();
+
+        // 一次查出本页所有订单的明细，再按订单id分组
+        Map<Long, List<OrderDetail>> orderDetailMap = getOrderDetailMap(ordersList);
+
+        for(Orders orders : ordersList) {
+            OrderVO orderVO = new OrderVO();
+            BeanUtils.copyProperties(orders, orderVO);
+
+            orderVO.setOrderDetailList(orderDetailMap.getOrDefault(orders.getId(), new ArrayList<>()));
+
+            list.add(orderVO);
+        }
+
+        return list;
+    }
+
+
+    /**
+     * 游标分页查询订单：按(order_time, id)定位到上一页末尾，不需要扫描跳过的行，总数按需统计
+     * @param ordersPageQueryDTO
+     * @param converter 订单到OrderVO的封装方式
+     * @return
+     */
+    private CursorPageResult cursorPageQuery(OrdersPageQueryDTO ordersPageQueryDTO,
+                                             Function<List<Orders>, List<OrderVO>> converter) {
+
+        if (ordersPageQueryDTO.getPageSize() <= 0) {
+            ordersPageQueryDTO.setPageSize(DEFAULT_PAGE_SIZE);
+        } else if (ordersPageQueryDTO.getPageSize() > MAX_PAGE_SIZE) {
+            ordersPageQueryDTO.setPageSize(MAX_PAGE_SIZE);
+        }
+
+        decodeCursor(ordersPageQueryDTO);
+
+        // 多查一条，用来判断是否还有下一页
+        List<Orders> ordersList = orderMapper.cursorQuery(ordersPageQueryDTO);
+
+        String nextCursor = null;
+        if (ordersList.size() > ordersPageQueryDTO.getPageSize()) {
+            ordersList = ordersList.subList(0, ordersPageQueryDTO.getPageSize());
+            nextCursor = encodeCursor(ordersList.get(ordersList.size() - 1));
+        }
+
+        long total = -1;
+        if (Boolean.TRUE.equals(ordersPageQueryDTO.getWithTotal())) {
+            total = orderMapper.countByCondition(ordersPageQueryDTO);
+        }
+
+        return new CursorPageResult(total, converter.apply(ordersList), nextCursor);
+    }
+
+    /**
+     * 生成游标：对下单时间和订单id编码，前端只需原样回传
+     * @param orders
+     * @return
+     */
+    private String encodeCursor(Orders orders) {
+        String cursor = orders.getOrderTime() + "," + orders.getId();
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标，空字符串表示第一页
+     * @param ordersPageQueryDTO
+     */
+    private void decodeCursor(OrdersPageQueryDTO ordersPageQueryDTO) {
+
+        String cursor = ordersPageQueryDTO.getCursor();
+
+        ordersPageQueryDTO.setCursorOrderTime(null);
+        ordersPageQueryDTO.setCursorId(null);
+
+        if (cursor == null || cursor.isEmpty()) {
+            return;
+        }
+
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(",");
+
+            ordersPageQueryDTO.setCursorOrderTime(LocalDateTime.parse(parts[0]));
+            ordersPageQueryDTO.setCursorId(Long.valueOf(parts[1]));
+        } catch (Exception e) {
+            throw new OrderBusinessException(MessageConstant.ORDER_CURSOR_ERROR);
+        }
+    }
+
+
 
 }
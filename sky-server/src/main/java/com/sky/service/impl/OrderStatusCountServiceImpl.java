@@ -0,0 +1,46 @@
+package com.sky.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sky.dto.OrderStatusCountDTO;
+import com.sky.mapper.OrderMapper;
+import com.sky.service.OrderStatusCountService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@Service
+public class OrderStatusCountServiceImpl implements OrderStatusCountService {
+
+    // 统计结果缓存时间（秒），工作台数据允许几秒的延迟
+    private static final long EXPIRE_SECONDS = 3;
+
+    // 统计起始时间和状态 -> 各状态订单数量，同一时刻多个请求只查询一次数据库
+    private final Cache<String, Map<Integer, Integer>> cache = Caffeine.newBuilder()
+            .maximumSize(100)
+            .expireAfterWrite(EXPIRE_SECONDS, TimeUnit.SECONDS)
+            .build();
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+
+    /**
+     * 按订单状态统计订单数量，一次GROUP BY查询得到所有状态的数量
+     * @param begin
+     * @param statuses
+     * @return
+     */
+    public Map<Integer, Integer> countByStatus(LocalDateTime begin, List<Integer> statuses) {
+        String key = (begin == null ? "all" : begin.toString()) + "_" + (statuses == null ? "all" : statuses.toString());
+
+        return cache.get(key, k -> Collections.unmodifiableMap(orderMapper.countGroupByStatus(begin, statuses).stream()
+                .collect(Collectors.toMap(OrderStatusCountDTO::getStatus, OrderStatusCountDTO::getCount))));
+    }
+}
@@ -0,0 +1,246 @@
+package com.sky.service.impl;
+
+import com.sky.constant.MessageConstant;
+import com.sky.exception.ReportBusinessException;
+import com.sky.service.ReportExportService;
+import com.sky.service.ReportService;
+import com.sky.vo.ReportExportJobVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@Service
+@Slf4j
+public class ReportExportServiceImpl implements ReportExportService {
+
+    // 导出任务 report_export_job_{jobId}
+    private static final String JOB_KEY = "report_export_job_";
+
+    // 同一日期范围正在执行的任务 report_export_running_{begin}_{end}
+    private static final String RUNNING_KEY = "report_export_running_";
+
+    // 生成好的报表文件 report_export_file_{begin}_{end}
+    private static final String FILE_KEY = "report_export_file_";
+
+    private static final long JOB_TTL_MINUTES = 30;
+
+    // 报表文件缓存时间：不短于任务的保留时间，任务显示已完成时文件一定还能下载
+    private static final long FILE_TTL_MINUTES = JOB_TTL_MINUTES;
+
+    // 排队或生成超过该时间仍未结束，认为执行任务的节点已宕机
+    private static final long STALE_MINUTES = 10;
+
+    // 一个导出任务最多覆盖的天数
+    private static final long MAX_RANGE_DAYS = 366;
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private RedisTemplate redisTemplate;
+
+    @Autowired
+    private RedisTemplate<String, byte[]> byteArrayRedisTemplate;
+
+    @Autowired
+    private ThreadPoolTaskExecutor reportExportExecutor;
+
+
+    /**
+     * 提交报表导出任务
+     * @param begin
+     * @param end
+     * @return
+     */
+    public ReportExportJobVO submit(LocalDate begin, LocalDate end) {
+
+        checkDateRange(begin, end);
+
+        String range = begin + "_" + end;
+
+        ReportExportJobVO job = ReportExportJobVO.builder()
+                .jobId(UUID.randomUUID().toString())
+                .begin(begin)
+                .end(end)
+                .status(ReportExportJobVO.WAITING)
+                .createTime(LocalDateTime.now())
+                .build();
+
+        // 该日期范围的报表已经生成过，直接复用缓存的文件（包含今天时数据还在变化，重新生成）
+        if (end.isBefore(LocalDate.now()) && Boolean.TRUE.equals(byteArrayRedisTemplate.hasKey(FILE_KEY + range))) {
+            job.setStatus(ReportExportJobVO.FINISHED);
+            job.setFinishTime(LocalDateTime.now());
+            saveJob(job);
+            return job;
+        }
+
+        // 同一日期范围已有任务在生成，直接返回该任务，避免重复生成
+        Boolean absent = redisTemplate.opsForValue()
+                .setIfAbsent(RUNNING_KEY + range, job.getJobId(), JOB_TTL_MINUTES, TimeUnit.MINUTES);
+        if (!Boolean.TRUE.equals(absent)) {
+            ReportExportJobVO runningJob = (ReportExportJobVO) redisTemplate.opsForValue()
+                    .get(JOB_KEY + redisTemplate.opsForValue().get(RUNNING_KEY + range));
+            if (runningJob != null && !isStale(runningJob)) {
+                return runningJob;
+            }
+            redisTemplate.opsForValue().set(RUNNING_KEY + range, job.getJobId(), JOB_TTL_MINUTES, TimeUnit.MINUTES);
+        }
+
+        saveJob(job);
+
+        try {
+            reportExportExecutor.execute(() -> export(job));
+        } catch (TaskRejectedException e) {
+            // 线程池队列已满
+            redisTemplate.delete(JOB_KEY + job.getJobId());
+            redisTemplate.delete(RUNNING_KEY + range);
+            throw new ReportBusinessException(MessageConstant.REPORT_EXPORT_BUSY);
+        }
+
+        log.info("提交报表导出任务: {}", job);
+
+        return job;
+    }
+
+    /**
+     * 校验导出的日期范围
+     * @param begin
+     * @param end
+     */
+    public void checkDateRange(LocalDate begin, LocalDate end) {
+
+        if (begin == null || end == null || begin.isAfter(end)) {
+            throw new ReportBusinessException(MessageConstant.REPORT_DATE_RANGE_ERROR);
+        }
+
+        if (ChronoUnit.DAYS.between(begin, end) + 1 > MAX_RANGE_DAYS) {
+            throw new ReportBusinessException(MessageConstant.REPORT_DATE_RANGE_TOO_LONG);
+        }
+    }
+
+    /**
+     * 查询导出任务状态
+     * @param jobId
+     * @return
+     */
+    public ReportExportJobVO getJob(String jobId) {
+
+        ReportExportJobVO job = (ReportExportJobVO) redisTemplate.opsForValue().get(JOB_KEY + jobId);
+
+        if (job == null) {
+            throw new ReportBusinessException(MessageConstant.REPORT_EXPORT_JOB_NOT_FOUND);
+        }
+
+        // 执行任务的节点宕机，任务不会再结束
+        if (isStale(job)) {
+            job.setStatus(ReportExportJobVO.FAILED);
+            job.setMessage(MessageConstant.REPORT_EXPORT_FAILED);
+        }
+
+        // 文件已过期（如Redis内存不足被淘汰），提示重新提交
+        if (ReportExportJobVO.FINISHED.equals(job.getStatus())
+                && !Boolean.TRUE.equals(byteArrayRedisTemplate.hasKey(FILE_KEY + job.getBegin() + "_" + job.getEnd()))) {
+            job.setStatus(ReportExportJobVO.EXPIRED);
+        }
+
+        return job;
+    }
+
+    /**
+     * 获取已生成的报表文件
+     * @param jobId
+     * @return
+     */
+    public byte[] getFile(String jobId) {
+
+        ReportExportJobVO job = getJob(jobId);
+
+        if (!ReportExportJobVO.FINISHED.equals(job.getStatus())) {
+            throw new ReportBusinessException(MessageConstant.REPORT_EXPORT_NOT_FINISHED);
+        }
+
+        byte[] file = byteArrayRedisTemplate.opsForValue().get(FILE_KEY + job.getBegin() + "_" + job.getEnd());
+
+        if (file == null) {
+            // 缓存的文件已过期，需要重新提交
+            throw new ReportBusinessException(MessageConstant.REPORT_EXPORT_FILE_EXPIRED);
+        }
+
+        return file;
+    }
+
+
+    /**
+     * 在导出线程池中生成报表
+     * @param job
+     */
+    private void export(ReportExportJobVO job) {
+
+        String range = job.getBegin() + "_" + job.getEnd();
+
+        job.setStatus(ReportExportJobVO.RUNNING);
+        job.setStartTime(LocalDateTime.now());
+        saveJob(job);
+
+        try {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+            reportService.exportBusinessData(job.getBegin(), job.getEnd(), outputStream);
+
+            // 按日期范围缓存生成好的文件，重复下载不再生成
+            byteArrayRedisTemplate.opsForValue().set(FILE_KEY + range, outputStream.toByteArray(), FILE_TTL_MINUTES, TimeUnit.MINUTES);
+
+            job.setStatus(ReportExportJobVO.FINISHED);
+        } catch (Exception e) {
+            log.error("报表导出失败: {}", job.getJobId(), e);
+
+            job.setStatus(ReportExportJobVO.FAILED);
+            // 异常信息只记录日志，不返回给前端
+            job.setMessage(MessageConstant.REPORT_EXPORT_FAILED);
+        } finally {
+            job.setFinishTime(LocalDateTime.now());
+            saveJob(job);
+
+            // 超时后同一日期范围可能已由新任务接管，只清理自己的标记
+            if (job.getJobId().equals(redisTemplate.opsForValue().get(RUNNING_KEY + range))) {
+                redisTemplate.delete(RUNNING_KEY + range);
+            }
+        }
+    }
+
+    /**
+     * 任务是否排队或生成超时
+     * @param job
+     * @return
+     */
+    private boolean isStale(ReportExportJobVO job) {
+        LocalDateTime since;
+        if (ReportExportJobVO.WAITING.equals(job.getStatus())) {
+            since = job.getCreateTime();
+        } else if (ReportExportJobVO.RUNNING.equals(job.getStatus())) {
+            since = job.getStartTime() != null ? job.getStartTime() : job.getCreateTime();
+        } else {
+            return false;
+        }
+
+        return since != null && since.isBefore(LocalDateTime.now().minusMinutes(STALE_MINUTES));
+    }
+
+    /**
+     * 保存任务状态
+     * @param job
+     */
+    private void saveJob(ReportExportJobVO job) {
+        redisTemplate.opsForValue().set(JOB_KEY + job.getJobId(), job, JOB_TTL_MINUTES, TimeUnit.MINUTES);
+    }
+}
@@ -1,14 +1,20 @@
 package com.sky.service.impl;
 
 import com.sky.dto.GoodsSalesDTO;
-import com.sky.entity.Orders;
+import com.sky.entity.BusinessStatistics;
 import com.sky.mapper.OrderMapper;
-import com.sky.mapper.UserMapper;
+import com.sky.service.BusinessStatisticsService;
 import com.sky.service.ReportService;
 import com.sky.service.WorkspaceService;
+import com.sky.utils.TimeSeriesUtil;
 import com.sky.vo.*;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFRow;
 import org.apache.poi.xssf.usermodel.XSSFSheet;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
@@ -19,13 +25,11 @@ import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Collectors;
 
 
@@ -33,12 +37,24 @@ import java.util.stream.Collectors;
 @Slf4j
 public class ReportServiceImpl implements ReportService {
 
+    // 模板中明细数据的起始行（行索引从0开始）
+    private static final int EXPORT_DETAIL_FIRST_ROW = 7;
+
+    // 明细数据的最后一列
+    private static final int EXPORT_DETAIL_LAST_COLUMN = 6;
+
+    // SXSSF在内存中保留的行数，超出的行会被刷到临时文件
+    private static final int EXPORT_ROW_WINDOW = 100;
+
+    // 每次读取的天数
+    private static final int EXPORT_BATCH_DAYS = 366;
+
 
     @Autowired
     private OrderMapper orderMapper;
 
     @Autowired
-    private UserMapper userMapper;
+    private BusinessStatisticsService businessStatisticsService;
 
     @Autowired
     private WorkspaceService workspaceService;
@@ -52,42 +68,11 @@ public class ReportServiceImpl implements ReportService {
      */
     public TurnoverReportVO getTurnover(LocalDate begin, LocalDate end) {
         // 存放从begin到end范围内的每天日期 （没有具体到时间）
-        List<LocalDate> dateList = new ArrayList<>();
-
-        dateList.add(begin);
-
-        while(!begin.equals(end)) {
-            // 计算日期
-            begin = begin.plusDays(1);
-
-            dateList.add(begin);
-        }
-
-
-        // 营业额
-        List<Double> turnoverList = new ArrayList<>();
-
-        for(LocalDate date: dateList) {
-            // 根据要查的每一天去查营业额
-            LocalDateTime beginTime = LocalDateTime.of(date, LocalTime.MIN);
-            // of() 方法是 LocalDateTime 类的一个静态工厂方法，用于创建一个新的 LocalDateTime 实例
-            // 第一个参数表示日期部分，第二个表示最小的时间
-            LocalDateTime endTime = LocalDateTime.of(date, LocalTime.MAX);
-
+        List<LocalDate> dateList = TimeSeriesUtil.dateRange(begin, end);
 
-            Map map = new HashMap<>();
-
-            map.put("status", Orders.COMPLETED);
-            map.put("begin", beginTime);
-            map.put("end", endTime);
-
-            //
-            Double turnover = orderMapper.sumByMap(map);
-
-            turnover = turnover == null ? 0.0 : turnover;
-
-            turnoverList.add(turnover);
-        }
+        // 营业额 （从每日汇总表读取，与dateList一一对应）
+        List<Double> turnoverList = businessStatisticsService.list(begin, end).stream()
+                .map(BusinessStatistics::getTurnover).collect(Collectors.toList());
 
 
         // 使用lang3包下的StringUtils.join 拼接字符串
@@ -107,35 +92,15 @@ public class ReportServiceImpl implements ReportService {
      */
     public UserReportVO getUserStatistics(LocalDate begin, LocalDate end) {
 
-        List<LocalDate> dateList = new ArrayList<>();
-        dateList.add(begin);
-
-        while(!begin.equals(end)) {
-
-            begin = begin.plusDays(1);
-
-            dateList.add(begin);
-        }
-
-        //
-        List<Integer> newUserList = new ArrayList<>();
-        List<Integer> totalUserList = new ArrayList<>();
-
+        List<LocalDate> dateList = TimeSeriesUtil.dateRange(begin, end);
 
-        for(LocalDate date: dateList) {
+        // 新增用户 （从每日汇总表读取，与dateList一一对应）
+        List<Integer> newUserList = businessStatisticsService.list(begin, end).stream()
+                .map(BusinessStatistics::getNewUsers).collect(Collectors.toList());
 
-            LocalDateTime beginTime = LocalDateTime.of(date, LocalTime.MIN);
-            LocalDateTime endTime = LocalDateTime.of(date, LocalTime.MAX);
-
-
-            Integer newUser = getUserCount(beginTime, endTime);
-
-            Integer totalUser = getUserCount(null, endTime);
-
-
-            newUserList.add(newUser);
-            totalUserList.add(totalUser);
-        }
+        // 总用户 = begin之前的用户数 + 截至当天的新增用户前缀和
+        Integer baseUserCount = businessStatisticsService.getUserCountBefore(begin);
+        List<Integer> totalUserList = TimeSeriesUtil.cumulative(baseUserCount, newUserList);
 
 
         UserReportVO userReportVO = UserReportVO.builder()
@@ -156,35 +121,17 @@ public class ReportServiceImpl implements ReportService {
      */
     public OrderReportVO getOrdersStatistics(LocalDate begin, LocalDate end) {
 
-        List<LocalDate> dateList = new ArrayList<>();
+        List<LocalDate> dateList = TimeSeriesUtil.dateRange(begin, end);
 
-        dateList.add(begin);
-
-        while (!begin.equals(end)) {
-
-            begin = begin.plusDays(1);
-
-            dateList.add(begin);
-        }
+        // 从每日汇总表读取每天的订单数和有效订单数
+        List<BusinessStatistics> statisticsList = businessStatisticsService.list(begin, end);
 
         //
-        List<Integer> orderCountList = new ArrayList<>();
+        List<Integer> orderCountList = statisticsList.stream()
+                .map(BusinessStatistics::getOrderCount).collect(Collectors.toList());
         //
-        List<Integer> validOrderCountList = new ArrayList<>();
-
-        for(LocalDate date: dateList) {
-
-            LocalDateTime beginTime = LocalDateTime.of(date, LocalTime.MIN);
-            LocalDateTime endTime = LocalDateTime.of(date, LocalTime.MAX);
-
-            Integer orderCount = getOrderCount(beginTime, endTime, null);
-
-            Integer validOrderCount = getOrderCount(beginTime, endTime, Orders.COMPLETED);
-
-            orderCountList.add(orderCount);
-            validOrderCountList.add(validOrderCount);
-
-        }
+        List<Integer> validOrderCountList = statisticsList.stream()
+                .map(BusinessStatistics::getValidOrderCount).collect(Collectors.toList());
 
         //
         Integer totalOrderCount = orderCountList.stream().reduce(Integer::sum).get();
@@ -247,6 +194,31 @@ public class ReportServiceImpl implements ReportService {
         LocalDate begin = LocalDate.now().minusDays(30);
         LocalDate end = LocalDate.now().minusDays(1);
 
+        try {
+            // 通过输出流将文件下载到客户端浏览器中
+            ServletOutputStream outputStream = response.getOutputStream();
+
+            exportBusinessData(begin, end, outputStream);
+
+            // 关闭资源
+            outputStream.flush();
+            outputStream.close();
+
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+    }
+
+    /**
+     * 导出指定日期范围的Excel报表
+     * 明细行通过SXSSF流式写出，内存中只保留最近的 EXPORT_ROW_WINDOW 行，支持任意长度的日期范围
+     * @param begin
+     * @param end
+     * @param outputStream
+     */
+    public void exportBusinessData(LocalDate begin, LocalDate end, OutputStream outputStream) throws IOException {
+
         // 查询概览运营数据 （Impl实现类中也可以注入别的service）
         BusinessDataVO businessData = workspaceService.getBusinessData(LocalDateTime.of(begin, LocalTime.MIN),
                 LocalDateTime.of(end, LocalTime.MAX));
@@ -254,111 +226,103 @@ public class ReportServiceImpl implements ReportService {
         // 反射获得类对象，类加载器 获得一个输入流对象
         InputStream inputStream = this.getClass().getClassLoader().getResourceAsStream("template/template.xlsx");
 
-        try {
+        //基于提供好的模板文件输入流对象 创建 一个新的Excel表格对象
+        XSSFWorkbook template = new XSSFWorkbook(inputStream);
+        inputStream.close();
 
-            //基于提供好的模板文件输入流对象 创建 一个新的Excel表格对象
-            XSSFWorkbook excel = new XSSFWorkbook(inputStream);
+        // 获得Excel文件中的一个Sheet页
+        XSSFSheet sheet = template.getSheet("Sheet1");
+        // 获取行 单元格并填充时间数据（行索引从0开始）
+        sheet.getRow(1).getCell(1).setCellValue(begin + "to" + end);
 
-            // 获得Excel文件中的一个Sheet页
-            XSSFSheet sheet = excel.getSheet("Sheet1");
-            // 获取行 单元格并填充时间数据（行索引从0开始）
-            sheet.getRow(1).getCell(1).setCellValue(begin + "to" + end);
+        // 获得第4行对象
+        XSSFRow row = sheet.getRow(3);
+        // 获取单元格 并 填充数据（营业额、有效订单率、新增用户数）
+        row.getCell(2).setCellValue(businessData.getTurnover());
 
-            // 获得第4行对象
-            XSSFRow row = sheet.getRow(3);
-            // 获取单元格 并 填充数据（营业额、有效订单率、新增用户数）
-            row.getCell(2).setCellValue(businessData.getTurnover());
+        row.getCell(4).setCellValue(businessData.getOrderCompletionRate());
 
-            row.getCell(4).setCellValue(businessData.getOrderCompletionRate());
+        row.getCell(6).setCellValue(businessData.getNewUsers());
 
-            row.getCell(6).setCellValue(businessData.getNewUsers());
+        // 切换行 并 填充数据
+        row = sheet.getRow(4);
 
-            // 切换行 并 填充数据
-            row = sheet.getRow(4);
+        row.getCell(2).setCellValue(businessData.getValidOrderCount());
 
-            row.getCell(2).setCellValue(businessData.getValidOrderCount());
+        row.getCell(4).setCellValue(businessData.getUnitPrice()); // 平均客单价
 
-            row.getCell(4).setCellValue(businessData.getUnitPrice()); // 平均客单价
 
+        // 记下模板明细行的单元格样式，再删掉模板中预留的明细行（SXSSF只能在模板已有行之后追加新行）
+        XSSFRow templateRow = sheet.getRow(EXPORT_DETAIL_FIRST_ROW);
+        CellStyle[] detailStyles = new CellStyle[EXPORT_DETAIL_LAST_COLUMN + 1];
+        for (int col = 1; col <= EXPORT_DETAIL_LAST_COLUMN; col++) {
+            detailStyles[col] = templateRow.getCell(col).getCellStyle();
+        }
+        for (int i = sheet.getLastRowNum(); i >= EXPORT_DETAIL_FIRST_ROW; i--) {
+            if (sheet.getRow(i) != null) {
+                sheet.removeRow(sheet.getRow(i));
+            }
+        }
 
-            for(int i=0; i<30; i++) {
-                // 遍历每天的数据
-                LocalDate data = begin.plusDays(i);
+        SXSSFWorkbook excel = new SXSSFWorkbook(template, EXPORT_ROW_WINDOW);
 
-                // 准备明细数据 （按天查询）
-                businessData = workspaceService.getBusinessData(LocalDateTime.of(data, LocalTime.MIN),
-                        LocalDateTime.of(data, LocalTime.MAX));
+        try {
+            SXSSFSheet detailSheet = excel.getSheet("Sheet1");
 
-                // 填充明细数据
-                row = sheet.getRow(7 + i);
+            int rowNum = EXPORT_DETAIL_FIRST_ROW;
 
-                row.getCell(1).setCellValue(data.toString());
+            // 明细数据 （按批读取每日汇总数据，一年的数据只需一次查询）
+            for (LocalDate batchBegin = begin; !batchBegin.isAfter(end); batchBegin = batchBegin.plusDays(EXPORT_BATCH_DAYS)) {
 
+                LocalDate batchEnd = batchBegin.plusDays(EXPORT_BATCH_DAYS - 1);
+                if (batchEnd.isAfter(end)) {
+                    batchEnd = end;
+                }
 
-                row.getCell(2).setCellValue(businessData.getTurnover());
+                for (BusinessStatistics statistics : businessStatisticsService.list(batchBegin, batchEnd)) {
 
-                row.getCell(3).setCellValue(businessData.getValidOrderCount());
+                    Integer orderCount = statistics.getOrderCount();
+                    Double orderCompletionRate = orderCount == 0 ? 0.0 : statistics.getValidOrderCount().doubleValue() / orderCount;
 
-                row.getCell(4).setCellValue(businessData.getOrderCompletionRate());
+                    // 填充明细数据
+                    Row detailRow = detailSheet.createRow(rowNum++);
 
-                row.getCell(5).setCellValue(businessData.getUnitPrice());
+                    createCell(detailRow, 1, detailStyles).setCellValue(statistics.getDate().toString());
 
-                row.getCell(6).setCellValue(businessData.getNewUsers());
-            }
+                    createCell(detailRow, 2, detailStyles).setCellValue(statistics.getTurnover());
 
-            // 通过输出流将文件下载到客户端浏览器中
-            ServletOutputStream outputStream = response.getOutputStream();
+                    createCell(detailRow, 3, detailStyles).setCellValue(statistics.getValidOrderCount());
 
-            // 写回浏览器
-            excel.write(outputStream);
+                    createCell(detailRow, 4, detailStyles).setCellValue(orderCompletionRate);
 
-            // 关闭资源
-            outputStream.flush();
-            outputStream.close();
-            excel.close();
-
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-
-    }
+                    createCell(detailRow, 5, detailStyles).setCellValue(statistics.getUnitPrice());
 
+                    createCell(detailRow, 6, detailStyles).setCellValue(statistics.getNewUsers());
+                }
+            }
 
-    /**
-     * 获取订单数
-     * @param beginTime
-     * @param endTime
-     * @param status
-     * @return
-     */
-    private Integer getOrderCount(LocalDateTime beginTime, LocalDateTime endTime, Integer status) {
-
-        Map map = new HashMap<>();
-
-        map.put("begin", beginTime);
-        map.put("end", endTime);
-        map.put("status", status);
+            // 写回输出流
+            excel.write(outputStream);
 
-        return orderMapper.countByMap(map);
+        } finally {
+            // 删除SXSSF写出的临时文件
+            excel.dispose();
+            excel.close();
+        }
     }
 
 
     /**
-     * 获取用户数
-     * @param beginTime
-     * @param endTime
+     * 创建明细单元格并套用模板样式
+     * @param row
+     * @param col
+     * @param styles
      * @return
      */
-    private Integer getUserCount(LocalDateTime beginTime, LocalDateTime endTime) {
-
-        Map map = new HashMap<>();
-
-        map.put("begin", beginTime);
-        map.put("end", endTime);
-
-
-        return userMapper.countByMap(map);
+    private Cell createCell(Row row, int col, CellStyle[] styles) {
+        Cell cell = row.createCell(col);
+        cell.setCellStyle(styles[col]);
+        return cell;
     }
 
-
 }
@@ -1,13 +1,13 @@
 package com.sky.service.impl;
 
+import com.sky.cache.ProductCatalog;
+import com.sky.cache.ProductInfo;
+import com.sky.cart.CartStore;
+import com.sky.constant.MessageConstant;
 import com.sky.context.BaseContext;
 import com.sky.dto.ShoppingCartDTO;
-import com.sky.entity.Dish;
-import com.sky.entity.Setmeal;
 import com.sky.entity.ShoppingCart;
-import com.sky.mapper.DishMapper;
-import com.sky.mapper.SetmealMapper;
-import com.sky.mapper.ShoppingCartMapper;
+import com.sky.exception.ShoppingCartBusinessException;
 import com.sky.service.ShoppingCartService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
@@ -15,7 +15,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
-import java.util.LinkedList;
 import java.util.List;
 
 
@@ -24,13 +23,10 @@ import java.util.List;
 public class ShoppingCartServiceImpl implements ShoppingCartService {
 
     @Autowired
-    private ShoppingCartMapper shoppingCartMapper;
+    private CartStore cartStore;
 
     @Autowired
-    private DishMapper dishMapper;
-
-    @Autowired
-    private SetmealMapper setmealMapper;
+    private ProductCatalog productCatalog;
 
 
     /**
@@ -46,45 +42,32 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
         // 当前用户id操作购物车
         shoppingCart.setUserId(BaseContext.getCurrentId());
 
-        // 查询当前商品是否在购物车中（如果在，就只修改数量）
-        List<ShoppingCart> shoppingCartList = shoppingCartMapper.list(shoppingCart);
-
-        if(shoppingCartList != null && shoppingCartList.size() == 1) {
-            shoppingCart = shoppingCartList.get(0);
-            shoppingCart.setNumber(shoppingCart.getNumber() + 1);
-
-            // 修改完商品数量后，再update回Mapper中的表
-            shoppingCartMapper.updateNumberById(shoppingCart);
-        } else {
+        // 当前商品已在购物车中时只修改数量
+        if(!cartStore.increaseIfPresent(shoppingCart)) {
             // 新添加进购物车表
 
             Long dishId = shoppingCart.getDishId();
 
-            if(dishId != null) {
-                // 添加的是菜品
-                Dish dish = dishMapper.getById(dishId);
-
-                // 从数据库查询到该菜品的信息，并赋值给购物车对象
-                shoppingCart.setName(dish.getName());
-                shoppingCart.setImage(dish.getImage());
-                shoppingCart.setAmount(dish.getPrice());
-
-            } else {
-                // 添加的是套餐
-                Setmeal setmeal = setmealMapper.getById(shoppingCart.getSetmealId());
-
-                shoppingCart.setName(setmeal.getName());
-                shoppingCart.setImage(setmeal.getImage());
-                shoppingCart.setAmount(setmeal.getPrice());
+            // 从商品目录查询菜品或套餐的信息
+            ProductInfo productInfo = dishId != null
+                    ? productCatalog.getDish(dishId)          // 添加的是菜品
+                    : productCatalog.getSetmeal(shoppingCart.getSetmealId());   // 添加的是套餐
 
+            if(productInfo == null) {
+                throw new ShoppingCartBusinessException(MessageConstant.PRODUCT_NOT_FOUND);
             }
 
+            // 赋值给购物车对象
+            shoppingCart.setName(productInfo.getName());
+            shoppingCart.setImage(productInfo.getImage());
+            shoppingCart.setAmount(productInfo.getPrice());
+
             // 数量设置为1，插入购物车表中
             shoppingCart.setNumber(1);
 
             shoppingCart.setCreateTime(LocalDateTime.now());
 
-            shoppingCartMapper.insert(shoppingCart);
+            cartStore.add(shoppingCart);
 
         }
 
@@ -98,13 +81,8 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
      */
     public List<ShoppingCart> list() {
 
-        // 往Mapper层传的是实体类或VO
-        ShoppingCart shoppingCart = ShoppingCart.builder()
-                .userId(BaseContext.getCurrentId())    // 设置user_id
-                .build();
-
         // 根据当前user_id 查询购物车中所有商品
-        return shoppingCartMapper.list(shoppingCart);
+        return cartStore.list(BaseContext.getCurrentId());
     }
 
 
@@ -113,7 +91,7 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
      */
     public void cleanShoppingCart() {
 
-        shoppingCartMapper.deleteByUserId(BaseContext.getCurrentId());
+        cartStore.clean(BaseContext.getCurrentId());
 
     }
 
@@ -129,21 +107,8 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
 
         shoppingCart.setUserId(BaseContext.getCurrentId());
 
-        List<ShoppingCart> shoppingCartList = shoppingCartMapper.list(shoppingCart);
-
         // 如果购物车中该商品数量为1，就直接删除；否则将Number减一
-        if(shoppingCartList != null && shoppingCartList.size() == 1) {
-            shoppingCart = shoppingCartList.get(0);
-
-            if(shoppingCart.getNumber() == 1) {
-                shoppingCartMapper.delete(shoppingCart);
-            } else {
-                shoppingCart.setNumber(shoppingCart.getNumber() - 1);
-                shoppingCartMapper.updateNumberById(shoppingCart);
-            }
-
-
-        }
+        cartStore.decrease(shoppingCart);
 
 
 
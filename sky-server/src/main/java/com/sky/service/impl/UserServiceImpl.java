@@ -8,6 +8,7 @@ import com.sky.entity.User;
 import com.sky.exception.LoginFailedException;
 import com.sky.mapper.UserMapper;
 import com.sky.properties.WeChatProperties;
+import com.sky.service.BusinessStatisticsService;
 import com.sky.service.UserService;
 import com.sky.utils.HttpClientUtil;
 import lombok.extern.slf4j.Slf4j;
@@ -33,6 +34,9 @@ public class UserServiceImpl implements UserService {
     @Autowired
     private UserMapper userMapper;
 
+    @Autowired
+    private BusinessStatisticsService businessStatisticsService;
+
     /**
      * 用户微信登录
      * @param userLoginDTO
@@ -60,6 +64,9 @@ public class UserServiceImpl implements UserService {
 
             userMapper.insert(user);
             // 插入完后的user的id需要被赋值（所以在xml里设置参数）
+
+            // 累加当天的新增用户数
+            businessStatisticsService.userRegistered(user);
         }
 
         return user;
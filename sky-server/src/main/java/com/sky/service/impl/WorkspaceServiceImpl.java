@@ -1,11 +1,12 @@
 package com.sky.service.impl;
 
 import com.sky.constant.StatusConstant;
+import com.sky.entity.BusinessStatistics;
 import com.sky.entity.Orders;
 import com.sky.mapper.DishMapper;
-import com.sky.mapper.OrderMapper;
 import com.sky.mapper.SetmealMapper;
-import com.sky.mapper.UserMapper;
+import com.sky.service.BusinessStatisticsService;
+import com.sky.service.OrderStatusCountService;
 import com.sky.service.WorkspaceService;
 import com.sky.vo.BusinessDataVO;
 import com.sky.vo.DishOverViewVO;
@@ -17,20 +18,21 @@ import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
 @Slf4j
 public class WorkspaceServiceImpl implements WorkspaceService {
 
-    @Autowired
-    private OrderMapper orderMapper;
-    @Autowired
-    private UserMapper userMapper;
     @Autowired
     private DishMapper dishMapper;
     @Autowired
     private SetmealMapper setmealMapper;
+    @Autowired
+    private BusinessStatisticsService businessStatisticsService;
+    @Autowired
+    private OrderStatusCountService orderStatusCountService;
 
     /**
      * 根据时间段统计营业数据
@@ -47,20 +49,17 @@ public class WorkspaceServiceImpl implements WorkspaceService {
          * 新增用户：当日新增用户的数量
          */
 
-        Map map = new HashMap();
-        map.put("begin",begin);
-        map.put("end",end);
+        // 直接读取每日汇总数据，不再扫描订单表和用户表
+        List<BusinessStatistics> statisticsList = businessStatisticsService.list(begin.toLocalDate(), end.toLocalDate());
 
         //查询总订单数
-        Integer totalOrderCount = orderMapper.countByMap(map);
+        Integer totalOrderCount = statisticsList.stream().mapToInt(BusinessStatistics::getOrderCount).sum();
 
-        map.put("status", Orders.COMPLETED);
         //营业额
-        Double turnover = orderMapper.sumByMap(map);
-        turnover = turnover == null? 0.0 : turnover;
+        Double turnover = statisticsList.stream().mapToDouble(BusinessStatistics::getTurnover).sum();
 
         //有效订单数
-        Integer validOrderCount = orderMapper.countByMap(map);
+        Integer validOrderCount = statisticsList.stream().mapToInt(BusinessStatistics::getValidOrderCount).sum();
 
         Double unitPrice = 0.0;
 
@@ -73,7 +72,7 @@ public class WorkspaceServiceImpl implements WorkspaceService {
         }
 
         //新增用户数
-        Integer newUsers = userMapper.countByMap(map);
+        Integer newUsers = statisticsList.stream().mapToInt(BusinessStatistics::getNewUsers).sum();
 
         return BusinessDataVO.builder()
                 .turnover(turnover)
@@ -91,28 +90,23 @@ public class WorkspaceServiceImpl implements WorkspaceService {
      * @return
      */
     public OrderOverViewVO getOrderOverView() {
-        Map map = new HashMap();
-        map.put("begin", LocalDateTime.now().with(LocalTime.MIN));
-        map.put("status", Orders.TO_BE_CONFIRMED);
+        // 一次查询出今天各状态的订单数量
+        Map<Integer, Integer> statusCount = orderStatusCountService.countByStatus(LocalDateTime.now().with(LocalTime.MIN), null);
 
         //待接单
-        Integer waitingOrders = orderMapper.countByMap(map);
+        Integer waitingOrders = statusCount.getOrDefault(Orders.TO_BE_CONFIRMED, 0);
 
         //待派送
-        map.put("status", Orders.CONFIRMED);
-        Integer deliveredOrders = orderMapper.countByMap(map);
+        Integer deliveredOrders = statusCount.getOrDefault(Orders.CONFIRMED, 0);
 
         //已完成
-        map.put("status", Orders.COMPLETED);
-        Integer completedOrders = orderMapper.countByMap(map);
+        Integer completedOrders = statusCount.getOrDefault(Orders.COMPLETED, 0);
 
         //已取消
-        map.put("status", Orders.CANCELLED);
-        Integer cancelledOrders = orderMapper.countByMap(map);
+        Integer cancelledOrders = statusCount.getOrDefault(Orders.CANCELLED, 0);
 
         //全部订单
-        map.put("status", null);
-        Integer allOrders = orderMapper.countByMap(map);
+        Integer allOrders = statusCount.values().stream().mapToInt(Integer::intValue).sum();
 
         return OrderOverViewVO.builder()
                 .waitingOrders(waitingOrders)
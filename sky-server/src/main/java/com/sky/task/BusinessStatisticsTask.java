@@ -0,0 +1,53 @@
+package com.sky.task;
+
+
+import com.sky.job.JobRunner;
+import com.sky.service.BusinessStatisticsService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+
+/**
+ * 自定义定时任务类：每日营业数据汇总
+ */
+
+@Component
+@Slf4j
+public class BusinessStatisticsTask {
+
+
+    // 每晚重新统计的天数（含前一天）
+    private static final int REFRESH_DAYS = 7;
+
+    @Autowired
+    private BusinessStatisticsService businessStatisticsService;
+
+    @Autowired
+    private JobRunner jobRunner;
+
+
+    /**
+     * 结算前一天的营业数据 (每天凌晨2点自动执行，在派送中订单处理完之后)
+     * 当天的数据是随订单状态增量累加的，这里根据订单表、用户表重新统计最近几天，修正可能的偏差
+     * （如前几天下的订单之后才完成或取消时的并发偏差）
+     */
+    @Scheduled(cron = "0 0 2 * * ?")
+    public void closeYesterday() {
+        jobRunner.run("closeYesterday", JobRunner.currentTick(), this::refreshYesterday);
+    }
+
+    private void refreshYesterday() {
+        log.info("结算前一天的营业数据: {}", LocalDateTime.now());
+
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+
+        businessStatisticsService.refresh(yesterday.minusDays(REFRESH_DAYS - 1), yesterday);
+    }
+
+
+}
@@ -0,0 +1,95 @@
+package com.sky.task;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * 定时任务的分批处理：按id顺序（id > 上一批最后的id）逐批查询并批量修改，每批完成后记录进度
+ * 任务中途退出后，下次执行从记录的进度继续，处理完后再从头补充处理一遍（id不大于进度、后来才满足条件的数据），最后清除进度
+ */
+@Component
+@Slf4j
+public class KeysetBatchProcessor {
+
+    // 进度 batch_checkpoint_{任务名称}，值为最后处理完的id
+    private static final String CHECKPOINT_PREFIX = "batch_checkpoint_";
+
+    // 进度保留时间（小时），超过后从头处理
+    private static final long CHECKPOINT_EXPIRE_HOURS = 24;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+
+    /**
+     * 分批处理
+     * @param job 任务名称
+     * @param chunkSize 每批数量
+     * @param reader 查询id大于lastId的下一批数据（参数为lastId、chunkSize），须按id升序
+     * @param idGetter 取数据的id
+     * @param writer 处理一批数据，返回实际修改的行数；须可重复执行（如update带状态条件）
+     * @return 修改的总行数
+     */
+    public <T> int process(String job, int chunkSize,
+                           BiFunction<Long, Integer, List<T>> reader,
+                           Function<T, Long> idGetter,
+                           ToIntFunction<List<T>> writer) {
+        String checkpointKey = CHECKPOINT_PREFIX + job;
+
+        Long lastId = getCheckpoint(checkpointKey);
+        if (lastId > 0) {
+            log.info("任务{}从上次的进度继续: id > {}", job, lastId);
+        }
+
+        int total = processFrom(checkpointKey, lastId, chunkSize, reader, idGetter, writer);
+
+        // 从进度继续时，本次的查询条件（如截止时间）比上次宽，id不大于进度的数据中可能有新满足条件的，从头再处理一遍
+        if (lastId > 0) {
+            log.info("任务{}从进度继续处理完成，从头补充处理", job);
+            total += processFrom(checkpointKey, 0L, chunkSize, reader, idGetter, writer);
+        }
+
+        // 全部处理完，下次从头开始
+        stringRedisTemplate.delete(checkpointKey);
+
+        return total;
+    }
+
+    /**
+     * 从lastId之后逐批处理到没有数据，每批完成后记录进度
+     */
+    private <T> int processFrom(String checkpointKey, Long lastId, int chunkSize,
+                                BiFunction<Long, Integer, List<T>> reader,
+                                Function<T, Long> idGetter,
+                                ToIntFunction<List<T>> writer) {
+        int total = 0;
+        List<T> chunk;
+        do {
+            chunk = reader.apply(lastId, chunkSize);
+            if (chunk.isEmpty()) {
+                break;
+            }
+
+            total += writer.applyAsInt(chunk);
+
+            lastId = idGetter.apply(chunk.get(chunk.size() - 1));
+            stringRedisTemplate.opsForValue().set(checkpointKey, lastId.toString(), CHECKPOINT_EXPIRE_HOURS, TimeUnit.HOURS);
+        } while (chunk.size() == chunkSize);
+
+        return total;
+    }
+
+    private Long getCheckpoint(String checkpointKey) {
+        String value = stringRedisTemplate.opsForValue().get(checkpointKey);
+
+        return value == null ? 0L : Long.valueOf(value);
+    }
+}
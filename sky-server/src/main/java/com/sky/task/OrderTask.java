@@ -3,14 +3,15 @@ package com.sky.task;
 
 import com.sky.constant.MessageConstant;
 import com.sky.entity.Orders;
+import com.sky.job.JobRunner;
 import com.sky.mapper.OrderMapper;
+import com.sky.service.OrderService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
-import java.util.List;
 
 
 /**
@@ -25,36 +26,50 @@ public class OrderTask {
     @Autowired
     private OrderMapper orderMapper;
 
+    @Autowired
+    private OrderService orderService;
 
-    /**
-     * 处理支付超时订单 (每过 1 min 自动执行)
-     */
-    @Scheduled(cron = "0 * * * * ?")
-    public void processTimeoutOrder() {
-        log.info("处理支付超时订单: {}", LocalDateTime.now());
+    @Autowired
+    private JobRunner jobRunner;
 
+    @Autowired
+    private KeysetBatchProcessor keysetBatchProcessor;
 
-        LocalDateTime time = LocalDateTime.now().plusMinutes(-15);
-        // 查询 订单状态为“待支付” 且 下单时间 < "当前时间 - 15 min" （即超过15min还未支付的）
-        List<Orders> ordersList = orderMapper.getByStatusAndOrdertimeLT(Orders.PENDING_PAYMENT, time);
 
 
-        if(ordersList != null && ordersList.size() > 0) {
+    // 每批处理的订单数
+    private static final int CHUNK_SIZE = 500;
 
-            ordersList.forEach(orders -> {
+    /**
+     * 兜底处理支付超时订单 (每过 15 min 自动执行)
+     * 超时订单平时由PaymentTimeoutTask按秒取消，这里只处理没有进入延时队列的订单（如Redis数据丢失、订单事件未处理）
+     * 按批查出超时订单的id，再用一条update批量取消；update带状态条件，重复执行或与支付并发时不会改错订单
+     */
+    @Scheduled(cron = "0 0/15 * * * ?")
+    public void processTimeoutOrder() {
+        jobRunner.run("processTimeoutOrder", JobRunner.currentTick(), this::cancelTimeoutOrders);
+    }
 
-                // 修改订单的状态为“已取消”，并设置取消理由、取消时间
-                orders.setStatus(Orders.CANCELLED);
-                orders.setCancelReason("支付超时，自动取消");
-                orders.setCancelTime(LocalDateTime.now());
+    private void cancelTimeoutOrders() {
+        log.info("处理支付超时订单: {}", LocalDateTime.now());
 
-                orderMapper.update(orders);
-            });
 
+        // 查询 订单状态为“待支付” 且 下单时间 < "当前时间 - 15 min" （即超过15min还未支付的）
+        LocalDateTime time = LocalDateTime.now().plusMinutes(-PaymentTimeoutTask.PAYMENT_TIMEOUT_MINUTES);
+        LocalDateTime cancelTime = LocalDateTime.now();
 
-        }
+        int total = keysetBatchProcessor.process("processTimeoutOrder", CHUNK_SIZE,
+                (lastId, limit) -> orderMapper.getIdsByStatusAndOrdertimeLT(Orders.PENDING_PAYMENT, time, lastId, limit),
+                id -> id,
+                ids -> {
+                    // 修改订单的状态为“已取消”，并设置取消理由、取消时间
+                    int rows = orderMapper.cancelBatch(ids, Orders.PENDING_PAYMENT, Orders.CANCELLED, "支付超时，自动取消", cancelTime);
 
+                    log.info("支付超时取消订单{}条: {}", rows, ids);
+                    return rows;
+                });
 
+        log.info("支付超时订单处理完成，共取消{}条", total);
     }
 
     /**
@@ -62,27 +77,24 @@ public class OrderTask {
      */
     @Scheduled(cron = "0 0 1 * * ?")
     public void processDeliveryOrder() {
+        jobRunner.run("processDeliveryOrder", JobRunner.currentTick(), this::completeDeliveryOrders);
+    }
+
+    private void completeDeliveryOrders() {
         log.info("处理派送中订单: {}", LocalDateTime.now());
 
 
         // 查询 1 h 以上还处于“派送中”的订单
         LocalDateTime time = LocalDateTime.now().plusHours(-1);
+        LocalDateTime deliveryTime = LocalDateTime.now();
 
-        List<Orders> ordersList = orderMapper.getByStatusAndOrdertimeLT(Orders.DELIVERY_IN_PROGRESS, LocalDateTime.now());
-
-
-        // 设置订单为“已完成”
-        if(ordersList != null && ordersList.size() > 0) {
-
-            ordersList.forEach(orders -> {
-
-                orders.setStatus(Orders.COMPLETED);
-
-                orderMapper.update(orders);
-            });
-
-        }
+        int total = keysetBatchProcessor.process("processDeliveryOrder", CHUNK_SIZE,
+                (lastId, limit) -> orderMapper.getByStatusAndOrdertimeLTAfterId(Orders.DELIVERY_IN_PROGRESS, time, lastId, limit),
+                Orders::getId,
+                // 每批的状态修改和营业数据累加在同一事务中
+                ordersList -> orderService.completeDeliveryBatch(ordersList, deliveryTime));
 
+        log.info("派送中订单处理完成，共完成{}条", total);
     }
 
 
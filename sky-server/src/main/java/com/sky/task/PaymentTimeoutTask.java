@@ -0,0 +1,116 @@
+package com.sky.task;
+
+import com.sky.entity.Orders;
+import com.sky.mapper.OrderMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 支付超时延时队列：下单后把订单id放入Redis有序集合（score为超时时间），每秒取出到期的订单并取消
+ */
+@Component
+@Slf4j
+public class PaymentTimeoutTask {
+
+    // 下单后多久未支付自动取消（分钟）
+    public static final long PAYMENT_TIMEOUT_MINUTES = 15;
+
+    private static final String KEY = "order_payment_timeout";
+
+    // 每次最多取出的到期订单数
+    private static final int BATCH_SIZE = 500;
+
+    // 取出并删除到期的订单id，多个节点同时执行时每个订单只会被一个节点取到
+    private static final DefaultRedisScript<List> POLL_SCRIPT = new DefaultRedisScript<>(
+            "local ids = redis.call('zrangebyscore', KEYS[1], '-inf', ARGV[1], 'limit', 0, ARGV[2]) " +
+            "if #ids > 0 then redis.call('zrem', KEYS[1], unpack(ids)) end " +
+            "return ids", List.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+
+    /**
+     * 登记订单的支付超时时间
+     * @param orderId
+     * @param orderTime 下单时间
+     */
+    public void schedule(Long orderId, LocalDateTime orderTime) {
+        LocalDateTime deadline = orderTime.plusMinutes(PAYMENT_TIMEOUT_MINUTES);
+        long score = deadline.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+        stringRedisTemplate.opsForZSet().add(KEY, orderId.toString(), score);
+    }
+
+    /**
+     * 把取出后处理失败的订单放回队列，立即到期
+     * @param orderIds
+     */
+    private void requeue(List<String> orderIds) {
+        double now = System.currentTimeMillis();
+
+        Set<ZSetOperations.TypedTuple<String>> tuples = orderIds.stream()
+                .map(id -> new DefaultTypedTuple<>(id, now))
+                .collect(Collectors.toSet());
+
+        stringRedisTemplate.opsForZSet().add(KEY, tuples);
+    }
+
+    /**
+     * 订单已支付或已取消，不再需要超时处理
+     * @param orderIds
+     */
+    public void remove(List<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+
+        stringRedisTemplate.opsForZSet().remove(KEY, orderIds.stream().map(String::valueOf).toArray());
+    }
+
+    /**
+     * 取消到期未支付的订单 (每过 1 s 自动执行)
+     */
+    @Scheduled(fixedDelay = 1000)
+    public void processDueOrders() {
+        List<String> due;
+        do {
+            due = stringRedisTemplate.execute(POLL_SCRIPT, Collections.singletonList(KEY),
+                    String.valueOf(System.currentTimeMillis()), String.valueOf(BATCH_SIZE));
+            if (due == null || due.isEmpty()) {
+                return;
+            }
+
+            List<Long> ids = due.stream().map(Long::valueOf).collect(Collectors.toList());
+
+            // 只取消仍处于“待支付”的订单，已支付的不受影响
+            int rows;
+            try {
+                rows = orderMapper.cancelBatch(ids, Orders.PENDING_PAYMENT, Orders.CANCELLED, "支付超时，自动取消", LocalDateTime.now());
+            } catch (Exception e) {
+                // 已经从队列中取出，放回去下一秒重试
+                log.error("取消支付超时订单失败，放回队列: {}", ids, e);
+                requeue(due);
+                return;
+            }
+
+            log.info("支付超时取消订单{}条: {}", rows, ids);
+        } while (due.size() == BATCH_SIZE);
+    }
+}
@@ -0,0 +1,21 @@
+package com.sky.websocket;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * 单节点消息总线：直接发送给本节点的WebSocket连接，只适用于单实例部署和测试
+ */
+@Component
+@ConditionalOnProperty(prefix = "sky.websocket", name = "bus", havingValue = "local")
+public class LocalNotificationBus implements NotificationBus {
+
+    @Autowired
+    private WebSocketServer webSocketServer;
+
+
+    public void publish(String message) {
+        webSocketServer.sendToAllClient(message);
+    }
+}
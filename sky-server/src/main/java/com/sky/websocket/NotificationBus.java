@@ -0,0 +1,13 @@
+package com.sky.websocket;
+
+/**
+ * 商家端消息总线：来单提醒、客户催单等消息通过总线发送给所有节点上连接的商家
+ */
+public interface NotificationBus {
+
+    /**
+     * 发送消息给所有连接的商家
+     * @param message
+     */
+    void publish(String message);
+}
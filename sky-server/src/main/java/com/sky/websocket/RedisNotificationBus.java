@@ -0,0 +1,60 @@
+package com.sky.websocket;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 多节点消息总线（默认）：消息发布到Redis频道，每个节点（包括发布者自己）收到后发送给本节点的WebSocket连接
+ */
+@Component
+@ConditionalOnProperty(prefix = "sky.websocket", name = "bus", havingValue = "redis", matchIfMissing = true)
+@Slf4j
+public class RedisNotificationBus implements NotificationBus, MessageListener {
+
+    // 商家端消息频道
+    public static final String CHANNEL = "order_notification";
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Autowired
+    private WebSocketServer webSocketServer;
+
+
+    @PostConstruct
+    public void subscribe() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    public void publish(String message) {
+        try {
+            stringRedisTemplate.convertAndSend(CHANNEL, message);
+        } catch (Exception e) {
+            // Redis不可用时至少保证本节点的商家能收到
+            log.error("发布商家端消息失败，只发送给本节点: {}", message, e);
+            webSocketServer.sendToAllClient(message);
+        }
+    }
+
+    /**
+     * 收到任一节点发布的消息，发送给本节点的连接
+     * @param message
+     * @param pattern
+     */
+    public void onMessage(Message message, byte[] pattern) {
+        webSocketServer.sendToAllClient(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,128 @@
+package com.sky.websocket;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.websocket.CloseReason;
+import javax.websocket.SendResult;
+import javax.websocket.Session;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 一个WebSocket客户端连接：待发送的消息放在有界队列中，逐条通过异步方式发送。
+ * 同一连接同时只有一条消息在发送，上一条发送完成的回调里再发下一条
+ */
+@Slf4j
+public class WebSocketClient {
+
+    // 每个连接最多积压的消息数，超过后丢弃最早的消息
+    private static final int QUEUE_CAPACITY = 100;
+
+    // 连续丢弃这么多条消息后断开连接，说明客户端已经跟不上
+    private static final int MAX_DROPPED = 50;
+
+    private final String sid;
+
+    private final Session session;
+
+    private final BlockingQueue<String> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+    // 是否有消息正在发送
+    private final AtomicBoolean sending = new AtomicBoolean(false);
+
+    // 连续丢弃的消息数
+    private final AtomicInteger dropped = new AtomicInteger();
+
+    public WebSocketClient(String sid, Session session) {
+        this.sid = sid;
+        this.session = session;
+    }
+
+    public Session getSession() {
+        return session;
+    }
+
+    /**
+     * 消息入队，并在发送线程池中开始发送
+     * @param message
+     * @param executor
+     */
+    public void send(String message, Executor executor) {
+        while (!queue.offer(message)) {
+            // 队列已满，丢弃最早的一条
+            queue.poll();
+
+            if (dropped.incrementAndGet() >= MAX_DROPPED) {
+                log.warn("客户端{}积压消息过多，断开连接", sid);
+                close(new CloseReason(CloseReason.CloseCodes.TRY_AGAIN_LATER, "too many pending messages"));
+                return;
+            }
+        }
+
+        trySend(executor);
+    }
+
+    /**
+     * 没有消息在发送时，开始发送队列中的消息
+     * @param executor
+     */
+    private void trySend(Executor executor) {
+        if (queue.isEmpty() || !sending.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            executor.execute(() -> sendNext(executor));
+        } catch (RejectedExecutionException e) {
+            // 线程池已满，消息留在队列里，下次有新消息时再发送
+            sending.set(false);
+            log.warn("WebSocket发送线程池已满，客户端{}的消息延后发送", sid);
+        }
+    }
+
+    private void sendNext(Executor executor) {
+        String message = queue.poll();
+
+        if (message == null || !session.isOpen()) {
+            sending.set(false);
+            // 置为空闲之前可能又有消息入队
+            trySend(executor);
+            return;
+        }
+
+        try {
+            session.getAsyncRemote().sendText(message, result -> onSent(result, executor));
+        } catch (Exception e) {
+            log.error("向客户端{}发送消息失败", sid, e);
+            sending.set(false);
+        }
+    }
+
+    private void onSent(SendResult result, Executor executor) {
+        if (!result.isOK()) {
+            // 发送失败或超时，客户端已经不可用
+            log.warn("向客户端{}发送消息失败，断开连接", sid, result.getException());
+            sending.set(false);
+            close(new CloseReason(CloseReason.CloseCodes.GOING_AWAY, "send failed"));
+            return;
+        }
+
+        dropped.set(0);
+        sendNext(executor);
+    }
+
+    private void close(CloseReason closeReason) {
+        queue.clear();
+
+        try {
+            session.close(closeReason);
+        } catch (IOException e) {
+            log.error("关闭客户端{}连接失败", sid, e);
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package com.sky.websocket;
 
 
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Component;
 
 import javax.websocket.OnClose;
@@ -10,23 +13,38 @@ import javax.websocket.Session;
 import javax.websocket.server.PathParam;
 import javax.websocket.server.ServerEndpoint;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 @ServerEndpoint("/ws/{sid}")
+@Slf4j
 public class WebSocketServer {
 
+    // 异步发送的超时时间（毫秒），超时的客户端会被断开
+    private static final long SEND_TIMEOUT_MILLIS = 5000;
+
     //存放会话对象
-    private static Map<String, Session> sessionMap = new HashMap();
+    private static Map<String, WebSocketClient> sessionMap = new ConcurrentHashMap<>();
+
+    // 发送消息的线程池（每个连接由容器创建一个实例，所以线程池放在静态变量中）
+    private static ThreadPoolTaskExecutor executor;
+
+
+    @Autowired
+    public void setWebSocketExecutor(ThreadPoolTaskExecutor webSocketExecutor) {
+        WebSocketServer.executor = webSocketExecutor;
+    }
 
     /**
      * 连接建立成功调用的方法
      */
     @OnOpen
     public void onOpen(Session session, @PathParam("sid") String sid) {
-        System.out.println("客户端：" + sid + "建立连接");
-        sessionMap.put(sid, session);
+        log.info("客户端：{}建立连接", sid);
+
+        session.getAsyncRemote().setSendTimeout(SEND_TIMEOUT_MILLIS);
+        sessionMap.put(sid, new WebSocketClient(sid, session));
     }
 
     /**
@@ -36,7 +54,7 @@ public class WebSocketServer {
      */
     @OnMessage
     public void onMessage(String message, @PathParam("sid") String sid) {
-        System.out.println("收到来自客户端：" + sid + "的信息:" + message);
+        log.info("收到来自客户端：{}的信息:{}", sid, message);
     }
 
     /**
@@ -45,24 +63,29 @@ public class WebSocketServer {
      * @param sid
      */
     @OnClose
-    public void onClose(@PathParam("sid") String sid) {
-        System.out.println("连接断开:" + sid);
-        sessionMap.remove(sid);
+    public void onClose(Session session, @PathParam("sid") String sid) {
+        log.info("连接断开:{}", sid);
+
+        // 同一个sid重新连接后，旧连接的关闭不能把新连接移除
+        WebSocketClient client = sessionMap.get(sid);
+        if (client != null && client.getSession() == session) {
+            sessionMap.remove(sid, client);
+        }
     }
 
     /**
-     * 群发
+     * 群发：消息放入每个连接的发送队列后立即返回，不等待客户端接收
      *
      * @param message
      */
     public void sendToAllClient(String message) {
-        Collection<Session> sessions = sessionMap.values();
-        for (Session session : sessions) {
+        Collection<WebSocketClient> clients = sessionMap.values();
+        for (WebSocketClient client : clients) {
             try {
                 //服务器向客户端发送消息
-                session.getBasicRemote().sendText(message);
+                client.send(message, executor);
             } catch (Exception e) {
-                e.printStackTrace();
+                log.error("WebSocket消息入队失败", e);
             }
         }
     }
@@ -0,0 +1,37 @@
+-- 每日营业数据汇总表：由 BusinessStatisticsTask 每天结算前一天，当天数据随订单状态变化增量累加
+create table if not exists business_statistics
+(
+    date              date                     not null comment '统计日期' primary key,
+    turnover          decimal(12, 2) default 0 not null comment '营业额',
+    valid_order_count int            default 0 not null comment '有效订单数',
+    order_count       int            default 0 not null comment '总订单数',
+    new_users         int            default 0 not null comment '新增用户数',
+    unit_price        decimal(12, 2) default 0 not null comment '平均客单价',
+    update_time       datetime                 null comment '更新时间'
+) comment '每日营业数据汇总';
+
+-- 上线时回填历史数据（订单、用户各按天分组扫描一次）
+insert into business_statistics (date, turnover, valid_order_count, order_count, new_users, unit_price, update_time)
+select d.date,
+       ifnull(o.turnover, 0),
+       ifnull(o.valid_order_count, 0),
+       ifnull(o.order_count, 0),
+       ifnull(u.new_users, 0),
+       if(ifnull(o.valid_order_count, 0) = 0, 0, o.turnover / o.valid_order_count),
+       now()
+from (select date(order_time) date from orders union select date(create_time) from user) d
+         left join (select date(order_time)                              date,
+                           count(id)                                     order_count,
+                           count(if(status = 5, id, null))               valid_order_count,
+                           ifnull(sum(if(status = 5, amount, 0)), 0)     turnover
+                    from orders
+                    group by date(order_time)) o on o.date = d.date
+         left join (select date(create_time) date, count(id) new_users
+                    from user
+                    group by date(create_time)) u on u.date = d.date
+on duplicate key update turnover          = values(turnover),
+                        valid_order_count = values(valid_order_count),
+                        order_count       = values(order_count),
+                        new_users         = values(new_users),
+                        unit_price        = values(unit_price),
+                        update_time       = values(update_time);
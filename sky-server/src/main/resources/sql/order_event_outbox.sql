@@ -0,0 +1,13 @@
+-- 订单事件发件箱（sky.order-event.outbox=true 时使用）：事件和订单修改在同一事务中写入，提交后投递失败的由定时任务补发
+create table order_event_outbox
+(
+    id           bigint auto_increment primary key,
+    type         int         not null comment '事件类型 1已下单 2已支付 3催单 4已取消',
+    order_id     bigint      not null comment '订单id',
+    order_number varchar(50) null comment '订单号',
+    user_id      bigint      null comment '下单用户id',
+    create_time  datetime    not null comment '事件发生时间',
+    status       tinyint     not null default 0 comment '0未处理 1已处理',
+    sent_time    datetime    null comment '处理时间',
+    key idx_order_event_outbox_status_id (status, id)
+) comment '订单事件发件箱';
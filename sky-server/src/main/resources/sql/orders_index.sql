@@ -0,0 +1,6 @@
+-- 订单游标分页使用的索引：按(order_time, id)倒序定位，用户端历史订单带user_id前缀
+create index idx_orders_order_time_id on orders (order_time, id);
+create index idx_orders_user_id_order_time_id on orders (user_id, order_time, id);
+
+-- 定时任务按状态和下单时间查找超时订单
+create index idx_orders_status_order_time on orders (status, order_time);
@@ -0,0 +1,26 @@
+-- 购物车唯一索引：同一用户的同一商品（菜品+口味 或 套餐）只有一行，加购时用 on duplicate key update 累加数量
+-- dish_id、setmeal_id、dish_flavor 可能为null，唯一索引中null互不冲突，所以建在生成列item_key上
+
+-- 1. 合并已有的重复商品
+update shopping_cart sc
+    join (select min(id) keep_id, sum(number) total
+          from shopping_cart
+          group by user_id, dish_id, setmeal_id, ifnull(dish_flavor, '')
+          having count(*) > 1) d
+    on sc.id = d.keep_id
+set sc.number = d.total;
+
+delete sc
+from shopping_cart sc
+    join shopping_cart keep
+    on keep.user_id = sc.user_id
+        and keep.dish_id <=> sc.dish_id
+        and keep.setmeal_id <=> sc.setmeal_id
+        and ifnull(keep.dish_flavor, '') = ifnull(sc.dish_flavor, '')
+        and keep.id < sc.id;
+
+-- 2. 商品标识生成列 + 唯一索引
+alter table shopping_cart
+    add column item_key varchar(160)
+        as (concat_ws('|', ifnull(dish_id, 0), ifnull(setmeal_id, 0), ifnull(dish_flavor, ''))) stored comment '商品标识',
+    add unique key uk_user_item (user_id, item_key);
@@ -0,0 +1,88 @@
+package com.sky.cache;
+
+import com.sky.config.CacheConfiguration;
+import com.sky.vo.DishVO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DishCacheTest {
+
+    @Mock
+    private RedisTemplate<String, List<DishVO>> dishRedisTemplate;
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private CacheInvalidationBroadcaster broadcaster;
+
+    @Mock
+    private SetOperations<String, String> setOperations;
+
+    @InjectMocks
+    private DishCache dishCache;
+
+
+    @Test
+    void listWithoutCategoryBypassesCache() {
+        List<DishVO> list = Collections.singletonList(DishVO.builder().id(1L).build());
+
+        assertEquals(list, dishCache.get(null, () -> list));
+
+        verifyNoInteractions(dishRedisTemplate, stringRedisTemplate);
+    }
+
+    @Test
+    void putRegistersAndExpiresInOneScript() {
+        List<DishVO> list = Collections.singletonList(DishVO.builder().id(1L).build());
+        dishCache.put(1L, list);
+
+        ArgumentCaptor<RedisScript> script = ArgumentCaptor.forClass(RedisScript.class);
+        verify(dishRedisTemplate).execute(script.capture(), eq(Arrays.asList("dish_cache_keys", "dish_1")), eq(list));
+
+        // 漏掉的清理到期后自愈
+        String text = script.getValue().getScriptAsString();
+        assertTrue(text.contains("'sadd'"));
+        assertTrue(text.contains("'EX', " + TimeUnit.MINUTES.toSeconds(CacheConfiguration.REDIS_EXPIRE_MINUTES)));
+        assertEquals(list, dishCache.get(1L));
+    }
+
+    @Test
+    void evictRemovesIndexAndValueTogether() {
+        when(stringRedisTemplate.opsForSet()).thenReturn(setOperations);
+        when(setOperations.members("dish_cache_keys")).thenReturn(new LinkedHashSet<>(Arrays.asList("dish_1", "dish_2")));
+
+        dishCache.evict(3L);
+        dishCache.evictAll();
+
+        ArgumentCaptor<RedisScript> script = ArgumentCaptor.forClass(RedisScript.class);
+        verify(stringRedisTemplate).execute(script.capture(), eq(Arrays.asList("dish_cache_keys", "dish_3")));
+        verify(stringRedisTemplate).execute(script.capture(), eq(Arrays.asList("dish_cache_keys", "dish_1", "dish_2")));
+
+        String text = script.getValue().getScriptAsString();
+        assertTrue(text.contains("'srem'"));
+        assertTrue(text.contains("'del'"));
+    }
+}
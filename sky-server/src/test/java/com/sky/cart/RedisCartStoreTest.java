@@ -0,0 +1,76 @@
+package com.sky.cart;
+
+import com.sky.entity.ShoppingCart;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class RedisCartStoreTest {
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @InjectMocks
+    private RedisCartStore cartStore;
+
+
+    @Test
+    void addWritesInfoAndNumberInOneScript() {
+        ShoppingCart shoppingCart = ShoppingCart.builder()
+                .userId(1L)
+                .dishId(2L)
+                .dishFlavor("微辣")
+                .name("鱼香肉丝")
+                .amount(new BigDecimal("18"))
+                .number(3)
+                .build();
+
+        cartStore.add(shoppingCart);
+
+        // 信息field只在不存在时写入，数量用hincrby累加，并刷新7天的过期时间
+        ArgumentCaptor<RedisScript> script = ArgumentCaptor.forClass(RedisScript.class);
+        verify(stringRedisTemplate).execute(script.capture(), eq(Collections.singletonList("cart_1")),
+                eq("d_2_微辣"), eq(":info"), anyString(), eq("3"), eq("604800"));
+
+        String text = script.getValue().getScriptAsString();
+        assertTrue(text.contains("'hsetnx'"));
+        assertTrue(text.contains("'hincrby'"));
+        assertTrue(text.contains("'expire'"));
+    }
+
+    @Test
+    void setmealFieldUsesSetmealId() {
+        ShoppingCart shoppingCart = ShoppingCart.builder()
+                .userId(1L)
+                .setmealId(5L)
+                .number(1)
+                .build();
+
+        cartStore.decrease(shoppingCart);
+
+        verify(stringRedisTemplate).execute(any(RedisScript.class),
+                eq(Collections.singletonList("cart_1")), eq("s_5"), eq(":info"));
+    }
+
+    @Test
+    void cleanWithoutTransactionDeletesImmediately() {
+        cartStore.clean(1L);
+
+        verify(stringRedisTemplate).delete("cart_1");
+    }
+}
@@ -0,0 +1,70 @@
+package com.sky.config;
+
+import com.sky.entity.Orders;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RedisConfigurationTest {
+
+    private RedisSerializer<Object> serializer;
+
+
+    @BeforeEach
+    void setUp() {
+        RedisConfiguration redisConfiguration = new RedisConfiguration();
+        ReflectionTestUtils.setField(redisConfiguration, "valueCodec", "json");
+        serializer = redisConfiguration.redisValueSerializer();
+    }
+
+    @Test
+    void cachedTimeKeepsSeconds() {
+        Orders orders = Orders.builder()
+                .id(1L)
+                .orderTime(LocalDateTime.of(2024, 1, 1, 12, 30, 45))
+                .amount(new BigDecimal("10.5"))
+                .build();
+
+        Object value = serializer.deserialize(serializer.serialize(Collections.singletonList(orders)));
+
+        Orders cached = (Orders) ((List<?>) value).get(0);
+        assertEquals(orders.getOrderTime(), cached.getOrderTime());
+        assertEquals(orders.getAmount(), cached.getAmount());
+    }
+
+    @Test
+    void legacyMinuteTimeIsStillReadable() {
+        byte[] bytes = "{\"@class\":\"com.sky.entity.Orders\",\"orderTime\":\"2024-01-01 12:30\"}"
+                .getBytes(StandardCharsets.UTF_8);
+
+        Orders cached = (Orders) serializer.deserialize(bytes);
+
+        assertEquals(LocalDateTime.of(2024, 1, 1, 12, 30), cached.getOrderTime());
+    }
+
+    @Test
+    void nullValueRoundTrips() {
+        assertTrue(serializer.deserialize(serializer.serialize(NullValue.INSTANCE)) instanceof NullValue);
+    }
+
+    @Test
+    void typeOutsideAllowlistIsRejected() {
+        byte[] bytes = "{\"@class\":\"java.lang.ProcessBuilder\",\"command\":[\"id\"]}"
+                .getBytes(StandardCharsets.UTF_8);
+
+        assertThrows(SerializationException.class, () -> serializer.deserialize(bytes));
+    }
+}
@@ -0,0 +1,109 @@
+package com.sky.job;
+
+import com.sky.vo.JobStatsVO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JobRunnerTest {
+
+    private static final String TICK = "2024-01-01T01:00";
+
+    private final LocalJobLock jobLock = new LocalJobLock();
+
+    private final JobRunner jobRunner = new JobRunner();
+
+    private final AtomicInteger runs = new AtomicInteger();
+
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(jobRunner, "jobLock", jobLock);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobRunner.destroy();
+    }
+
+    @Test
+    void tickRunsOnlyOnce() {
+        jobRunner.run("job", TICK, runs::incrementAndGet);
+        jobRunner.run("job", TICK, runs::incrementAndGet);
+
+        assertEquals(1, runs.get());
+        assertTrue(jobLock.isDone("job", TICK));
+        // 执行完释放租约
+        assertTrue(jobLock.tryAcquire("job", 60000));
+    }
+
+    @Test
+    void failedTickIsNotMarkedDone() {
+        assertThrows(IllegalStateException.class, () -> jobRunner.run("job", TICK, () -> {
+            throw new IllegalStateException();
+        }));
+
+        assertFalse(jobLock.isDone("job", TICK));
+
+        jobRunner.run("job", TICK, runs::incrementAndGet);
+        assertEquals(1, runs.get());
+
+        JobStatsVO jobStats = jobRunner.getStats().get(0);
+        assertEquals(2, jobStats.getRuns());
+        assertEquals(1, jobStats.getFailures());
+    }
+
+    @Test
+    void tickLeftByDeadHolderIsRetried() {
+        // 其他节点持有租约时跳过
+        jobLock.tryAcquire("job", 60000);
+        jobRunner.run("job", TICK, runs::incrementAndGet);
+        assertEquals(0, runs.get());
+        assertEquals(1, jobRunner.getStats().get(0).getSkipped());
+
+        // 持有者宕机：没有记录完成，租约失效后由本节点补执行
+        jobLock.release("job");
+        jobRunner.retryPending();
+        assertEquals(1, runs.get());
+        assertTrue(jobLock.isDone("job", TICK));
+
+        // 已补执行，不再重复
+        jobRunner.retryPending();
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void tickFinishedByHolderIsNotRetried() {
+        jobLock.tryAcquire("job", 60000);
+        jobRunner.run("job", TICK, runs::incrementAndGet);
+
+        // 持有者正常完成
+        jobLock.markDone("job", TICK, 60000);
+        jobLock.release("job");
+
+        jobRunner.retryPending();
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    void jobWithoutTickIsNotRetried() {
+        jobLock.tryAcquire("job", 60000);
+        jobRunner.run("job", runs::incrementAndGet);
+
+        jobLock.release("job");
+        jobRunner.retryPending();
+        assertEquals(0, runs.get());
+
+        jobRunner.run("job", runs::incrementAndGet);
+        jobRunner.run("job", runs::incrementAndGet);
+        assertEquals(2, runs.get());
+    }
+}
@@ -0,0 +1,62 @@
+package com.sky.job;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocalJobLockTest {
+
+    private final LocalJobLock jobLock = new LocalJobLock();
+
+
+    @Test
+    void leaseIsExclusiveUntilReleased() {
+        assertTrue(jobLock.tryAcquire("job", 60000));
+        assertFalse(jobLock.tryAcquire("job", 60000));
+
+        // 不同任务互不影响
+        assertTrue(jobLock.tryAcquire("other", 60000));
+
+        jobLock.release("job");
+        assertTrue(jobLock.tryAcquire("job", 60000));
+    }
+
+    @Test
+    void expiredLeaseCanBeAcquiredButNotRenewed() throws InterruptedException {
+        assertTrue(jobLock.tryAcquire("job", 1));
+        Thread.sleep(5);
+
+        // 持有者宕机、租约到期后不能再续租，其他节点可以获取
+        assertFalse(jobLock.renew("job", 60000));
+        assertTrue(jobLock.tryAcquire("job", 60000));
+    }
+
+    @Test
+    void renewExtendsLiveLease() throws InterruptedException {
+        assertTrue(jobLock.tryAcquire("job", 50));
+        assertTrue(jobLock.renew("job", 60000));
+        Thread.sleep(60);
+
+        assertFalse(jobLock.tryAcquire("job", 60000));
+    }
+
+    @Test
+    void renewWithoutLeaseFails() {
+        assertFalse(jobLock.renew("job", 60000));
+    }
+
+    @Test
+    void doneIsRecordedPerTick() throws InterruptedException {
+        assertFalse(jobLock.isDone("job", "2024-01-01T01:00"));
+
+        jobLock.markDone("job", "2024-01-01T01:00", 60000);
+        assertTrue(jobLock.isDone("job", "2024-01-01T01:00"));
+        assertFalse(jobLock.isDone("job", "2024-01-02T01:00"));
+        assertFalse(jobLock.isDone("other", "2024-01-01T01:00"));
+
+        jobLock.markDone("job", "2024-01-02T01:00", 1);
+        Thread.sleep(5);
+        assertFalse(jobLock.isDone("job", "2024-01-02T01:00"));
+    }
+}
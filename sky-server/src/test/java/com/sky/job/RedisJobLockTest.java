@@ -0,0 +1,91 @@
+package com.sky.job;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RedisJobLockTest {
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @InjectMocks
+    private RedisJobLock jobLock;
+
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+    }
+
+    @Test
+    void releaseOnlyDeletesOwnLease() {
+        ArgumentCaptor<String> owner = ArgumentCaptor.forClass(String.class);
+        when(valueOperations.setIfAbsent(eq("job_lock_job"), owner.capture(), eq(60000L), eq(TimeUnit.MILLISECONDS)))
+                .thenReturn(true);
+
+        assertTrue(jobLock.tryAcquire("job", 60000));
+        jobLock.release("job");
+
+        // 释放时用脚本比较持有者，租约过期后被其他节点获取时不会误删
+        ArgumentCaptor<RedisScript> script = ArgumentCaptor.forClass(RedisScript.class);
+        verify(stringRedisTemplate).execute(script.capture(), eq(Collections.singletonList("job_lock_job")),
+                eq(owner.getValue()));
+        assertTrue(script.getValue().getScriptAsString().contains("'get'"));
+        assertTrue(script.getValue().getScriptAsString().contains("'del'"));
+    }
+
+    @Test
+    void acquireFailsWhenHeld() {
+        when(valueOperations.setIfAbsent(eq("job_lock_job"), anyString(), eq(60000L), eq(TimeUnit.MILLISECONDS)))
+                .thenReturn(false);
+
+        assertFalse(jobLock.tryAcquire("job", 60000));
+    }
+
+    @Test
+    void renewReportsLostLease() {
+        ArgumentCaptor<RedisScript> script = ArgumentCaptor.forClass(RedisScript.class);
+        when(stringRedisTemplate.execute(script.capture(), eq(Collections.singletonList("job_lock_job")),
+                anyString(), eq("60000"))).thenReturn(1L, 0L);
+
+        assertTrue(jobLock.renew("job", 60000));
+        // 持有者不是自己时脚本返回0
+        assertFalse(jobLock.renew("job", 60000));
+
+        assertTrue(script.getValue().getScriptAsString().contains("'pexpire'"));
+    }
+
+    @Test
+    void doneIsKeyedByTick() {
+        jobLock.markDone("job", "2024-01-01T01:00", 1000);
+        verify(valueOperations).set(eq("job_done_job_2024-01-01T01:00"), anyString(), eq(1000L), eq(TimeUnit.MILLISECONDS));
+
+        assertFalse(jobLock.isDone("job", "2024-01-02T01:00"));
+
+        when(stringRedisTemplate.hasKey("job_done_job_2024-01-01T01:00")).thenReturn(true);
+        assertTrue(jobLock.isDone("job", "2024-01-01T01:00"));
+    }
+}
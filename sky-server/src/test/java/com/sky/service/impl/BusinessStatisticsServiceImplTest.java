@@ -0,0 +1,137 @@
+package com.sky.service.impl;
+
+import com.sky.dto.DailyStatisticsDTO;
+import com.sky.entity.BusinessStatistics;
+import com.sky.entity.Orders;
+import com.sky.mapper.BusinessStatisticsMapper;
+import com.sky.mapper.OrderMapper;
+import com.sky.mapper.UserMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BusinessStatisticsServiceImplTest {
+
+    @Mock
+    private BusinessStatisticsMapper businessStatisticsMapper;
+
+    @Mock
+    private OrderMapper orderMapper;
+
+    @Mock
+    private UserMapper userMapper;
+
+    @InjectMocks
+    private BusinessStatisticsServiceImpl businessStatisticsService;
+
+
+    @Test
+    void ordersCompletedIncreasesOncePerOrderDate() {
+        businessStatisticsService.ordersCompleted(Arrays.asList(
+                orders(LocalDateTime.of(2024, 1, 1, 12, 0), "10.5"),
+                orders(LocalDateTime.of(2024, 1, 1, 18, 0), "20"),
+                orders(LocalDateTime.of(2024, 1, 2, 9, 0), null)));
+
+        ArgumentCaptor<BusinessStatistics> captor = ArgumentCaptor.forClass(BusinessStatistics.class);
+        verify(businessStatisticsMapper, times(2)).increase(captor.capture());
+
+        Map<LocalDate, BusinessStatistics> byDate = captor.getAllValues().stream()
+                .collect(Collectors.toMap(BusinessStatistics::getDate, Function.identity()));
+
+        BusinessStatistics first = byDate.get(LocalDate.of(2024, 1, 1));
+        assertEquals(30.5, first.getTurnover());
+        assertEquals(2, first.getValidOrderCount());
+        // 下单数在下单时已累加
+        assertEquals(0, first.getOrderCount());
+        assertEquals(0, first.getNewUsers());
+
+        // 金额为空按0累加
+        BusinessStatistics second = byDate.get(LocalDate.of(2024, 1, 2));
+        assertEquals(0.0, second.getTurnover());
+        assertEquals(1, second.getValidOrderCount());
+    }
+
+    @Test
+    void orderSubmittedIncreasesOrderCount() {
+        businessStatisticsService.orderSubmitted(orders(LocalDateTime.of(2024, 1, 1, 12, 0), "10"));
+
+        ArgumentCaptor<BusinessStatistics> captor = ArgumentCaptor.forClass(BusinessStatistics.class);
+        verify(businessStatisticsMapper).increase(captor.capture());
+
+        assertEquals(LocalDate.of(2024, 1, 1), captor.getValue().getDate());
+        assertEquals(1, captor.getValue().getOrderCount());
+        assertEquals(0, captor.getValue().getValidOrderCount());
+        assertEquals(0.0, captor.getValue().getTurnover());
+    }
+
+    @Test
+    void completedOrderCancelledReversesTurnover() {
+        businessStatisticsService.completedOrderCancelled(orders(LocalDateTime.of(2024, 1, 1, 12, 0), "10.5"));
+
+        ArgumentCaptor<BusinessStatistics> captor = ArgumentCaptor.forClass(BusinessStatistics.class);
+        verify(businessStatisticsMapper).increase(captor.capture());
+
+        assertEquals(LocalDate.of(2024, 1, 1), captor.getValue().getDate());
+        assertEquals(-10.5, captor.getValue().getTurnover());
+        assertEquals(-1, captor.getValue().getValidOrderCount());
+        assertEquals(0, captor.getValue().getOrderCount());
+    }
+
+    @Test
+    void refreshUpsertsEveryDateInRange() {
+        when(orderMapper.countGroupByDate(any(Map.class))).thenReturn(Collections.singletonList(
+                DailyStatisticsDTO.builder().date(LocalDate.of(2024, 1, 1)).orderCount(3).validOrderCount(2).turnover(50.0).build()));
+        when(userMapper.countGroupByDate(any(Map.class))).thenReturn(Collections.singletonList(
+                DailyStatisticsDTO.builder().date(LocalDate.of(2024, 1, 3)).newUsers(4).build()));
+
+        businessStatisticsService.refresh(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 3));
+
+        ArgumentCaptor<List<BusinessStatistics>> captor = ArgumentCaptor.forClass(List.class);
+        verify(businessStatisticsMapper).insertOrUpdateBatch(captor.capture());
+
+        // 没有数据的日期补0，一次批量写入
+        List<BusinessStatistics> statisticsList = captor.getValue();
+        assertEquals(3, statisticsList.size());
+
+        BusinessStatistics first = statisticsList.get(0);
+        assertEquals(LocalDate.of(2024, 1, 1), first.getDate());
+        assertEquals(50.0, first.getTurnover());
+        assertEquals(3, first.getOrderCount());
+        assertEquals(25.0, first.getUnitPrice());
+        assertEquals(0, first.getNewUsers());
+
+        BusinessStatistics second = statisticsList.get(1);
+        assertEquals(0, second.getOrderCount());
+        assertEquals(0.0, second.getUnitPrice());
+
+        assertEquals(4, statisticsList.get(2).getNewUsers());
+    }
+
+
+    private Orders orders(LocalDateTime orderTime, String amount) {
+        return Orders.builder()
+                .orderTime(orderTime)
+                .amount(amount == null ? null : new BigDecimal(amount))
+                .build();
+    }
+}
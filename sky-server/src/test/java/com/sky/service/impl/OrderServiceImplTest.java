@@ -0,0 +1,214 @@
+package com.sky.service.impl;
+
+import com.sky.cache.ProductCatalog;
+import com.sky.cache.ProductInfo;
+import com.sky.cart.CartStore;
+import com.sky.dto.OrdersPageQueryDTO;
+import com.sky.dto.OrdersCancelDTO;
+import com.sky.entity.OrderDetail;
+import com.sky.entity.Orders;
+import com.sky.event.OrderEventPublisher;
+import com.sky.exception.OrderBusinessException;
+import com.sky.exception.ShoppingCartBusinessException;
+import com.sky.mapper.OrderDetailMapper;
+import com.sky.mapper.OrderMapper;
+import com.sky.result.CursorPageResult;
+import com.sky.result.PageResult;
+import com.sky.service.BusinessStatisticsService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OrderServiceImplTest {
+
+    @Mock
+    private OrderMapper orderMapper;
+
+    @Mock
+    private OrderDetailMapper orderDetailMapper;
+
+    @Mock
+    private BusinessStatisticsService businessStatisticsService;
+
+    @Mock
+    private OrderEventPublisher orderEventPublisher;
+
+    @Mock
+    private ProductCatalog productCatalog;
+
+    @Mock
+    private CartStore cartStore;
+
+    @InjectMocks
+    private OrderServiceImpl orderService;
+
+
+    @Test
+    void cursorPointsAfterLastOrderOfPage() {
+        LocalDateTime time = LocalDateTime.of(2024, 1, 1, 12, 30, 15);
+        // 多查出一条，说明还有下一页
+        when(orderMapper.cursorQuery(any(OrdersPageQueryDTO.class))).thenReturn(Arrays.asList(
+                orders(3L, time.plusMinutes(2)), orders(2L, time), orders(1L, time)));
+
+        CursorPageResult first = (CursorPageResult) orderService.conditionSearch(query(""));
+        assertEquals(2, first.getRecords().size());
+        assertEquals(-1, first.getTotal());
+        assertNotNull(first.getNextCursor());
+
+        orderService.conditionSearch(query(first.getNextCursor()));
+
+        ArgumentCaptor<OrdersPageQueryDTO> captor = ArgumentCaptor.forClass(OrdersPageQueryDTO.class);
+        verify(orderMapper, times(2)).cursorQuery(captor.capture());
+
+        // 第一页不带游标条件
+        OrdersPageQueryDTO firstQuery = captor.getAllValues().get(0);
+        assertNull(firstQuery.getCursorOrderTime());
+        assertNull(firstQuery.getCursorId());
+
+        // 下一页从上一页最后一条的(order_time, id)之后开始
+        OrdersPageQueryDTO nextQuery = captor.getAllValues().get(1);
+        assertEquals(time, nextQuery.getCursorOrderTime());
+        assertEquals(2L, nextQuery.getCursorId());
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        when(orderMapper.cursorQuery(any(OrdersPageQueryDTO.class))).thenReturn(Collections.singletonList(
+                orders(1L, LocalDateTime.of(2024, 1, 1, 12, 0))));
+
+        CursorPageResult result = (CursorPageResult) orderService.conditionSearch(query(""));
+
+        assertEquals(1, result.getRecords().size());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void totalIsCountedOnlyWhenRequested() {
+        when(orderMapper.cursorQuery(any(OrdersPageQueryDTO.class))).thenReturn(Collections.emptyList());
+        when(orderMapper.countByCondition(any(OrdersPageQueryDTO.class))).thenReturn(7L);
+
+        OrdersPageQueryDTO query = query("");
+        query.setWithTotal(true);
+        PageResult result = orderService.conditionSearch(query);
+
+        assertEquals(7, result.getTotal());
+        verify(orderMapper).countByCondition(query);
+    }
+
+    @Test
+    void pageSizeIsCapped() {
+        when(orderMapper.cursorQuery(any(OrdersPageQueryDTO.class))).thenReturn(Collections.emptyList());
+
+        OrdersPageQueryDTO query = query("");
+        query.setPageSize(100000);
+        orderService.conditionSearch(query);
+
+        verify(orderMapper).cursorQuery(query);
+        assertEquals(100, query.getPageSize());
+    }
+
+    @Test
+    void invalidCursorIsRejected() {
+        assertThrows(OrderBusinessException.class, () -> orderService.conditionSearch(query("not-a-cursor")));
+
+        verify(orderMapper, never()).cursorQuery(any(OrdersPageQueryDTO.class));
+    }
+
+
+    @Test
+    void completeCountsOnlyWhenStatusChanges() {
+        Orders orderDB = orders(1L, LocalDateTime.of(2024, 1, 1, 12, 0));
+        orderDB.setStatus(Orders.DELIVERY_IN_PROGRESS);
+        when(orderMapper.getById(1L)).thenReturn(orderDB);
+        when(orderMapper.completeBatch(eq(Collections.singletonList(1L)), eq(Orders.DELIVERY_IN_PROGRESS), eq(Orders.COMPLETED), any(LocalDateTime.class)))
+                .thenReturn(1, 0);
+
+        orderService.complete(1L);
+        verify(businessStatisticsService).orderCompleted(orderDB);
+
+        // 重复点击或定时任务已完成该订单：不再累加
+        assertThrows(OrderBusinessException.class, () -> orderService.complete(1L));
+        verify(businessStatisticsService, times(1)).orderCompleted(any(Orders.class));
+    }
+
+    @Test
+    void cancellingCompletedOrderReversesStatistics() {
+        Orders orderDB = orders(1L, LocalDateTime.of(2024, 1, 1, 12, 0));
+        orderDB.setStatus(Orders.COMPLETED);
+        orderDB.setPayStatus(Orders.UN_PAID);
+        when(orderMapper.getById(1L)).thenReturn(orderDB);
+        when(orderMapper.cancelBatch(eq(Collections.singletonList(1L)), eq(Orders.COMPLETED), eq(Orders.CANCELLED), eq("商家取消"), any(LocalDateTime.class)))
+                .thenReturn(1);
+
+        OrdersCancelDTO ordersCancelDTO = new OrdersCancelDTO();
+        ordersCancelDTO.setId(1L);
+        ordersCancelDTO.setCancelReason("商家取消");
+        orderService.cancel(ordersCancelDTO);
+
+        verify(businessStatisticsService).completedOrderCancelled(orderDB);
+    }
+
+    @Test
+    void cancelLosingRaceChangesNothing() {
+        Orders orderDB = orders(1L, LocalDateTime.of(2024, 1, 1, 12, 0));
+        orderDB.setStatus(Orders.COMPLETED);
+        when(orderMapper.getById(1L)).thenReturn(orderDB);
+        when(orderMapper.cancelBatch(eq(Collections.singletonList(1L)), eq(Orders.COMPLETED), eq(Orders.CANCELLED), any(), any(LocalDateTime.class)))
+                .thenReturn(0);
+
+        OrdersCancelDTO ordersCancelDTO = new OrdersCancelDTO();
+        ordersCancelDTO.setId(1L);
+        assertThrows(OrderBusinessException.class, () -> orderService.cancel(ordersCancelDTO));
+
+        verify(businessStatisticsService, never()).completedOrderCancelled(any(Orders.class));
+    }
+
+    @Test
+    void repetitionWithDeletedProductAddsNothing() {
+        OrderDetail onSale = OrderDetail.builder().dishId(1L).name("旧名称").build();
+        OrderDetail deleted = OrderDetail.builder().setmealId(2L).name("已删除").build();
+        when(orderDetailMapper.getByOrderId(1L)).thenReturn(Arrays.asList(onSale, deleted));
+        when(productCatalog.getDish(1L)).thenReturn(new ProductInfo(1L, "新名称", null, BigDecimal.ONE));
+        when(productCatalog.getSetmeal(2L)).thenReturn(null);
+
+        assertThrows(ShoppingCartBusinessException.class, () -> orderService.repetition(1L));
+
+        verify(cartStore, never()).addAll(any());
+    }
+
+    private OrdersPageQueryDTO query(String cursor) {
+        OrdersPageQueryDTO ordersPageQueryDTO = new OrdersPageQueryDTO();
+        ordersPageQueryDTO.setPageSize(2);
+        ordersPageQueryDTO.setCursor(cursor);
+
+        return ordersPageQueryDTO;
+    }
+
+    private Orders orders(Long id, LocalDateTime orderTime) {
+        return Orders.builder()
+                .id(id)
+                .orderTime(orderTime)
+                .build();
+    }
+}
@@ -0,0 +1,61 @@
+package com.sky.service.impl;
+
+import com.sky.dto.OrderStatusCountDTO;
+import com.sky.entity.Orders;
+import com.sky.mapper.OrderMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OrderStatusCountServiceImplTest {
+
+    @Mock
+    private OrderMapper orderMapper;
+
+    @InjectMocks
+    private OrderStatusCountServiceImpl orderStatusCountService;
+
+
+    @Test
+    void histogramIsCachedPerQuery() {
+        LocalDateTime begin = LocalDateTime.of(2024, 1, 1, 0, 0);
+        List<Integer> statuses = Arrays.asList(Orders.TO_BE_CONFIRMED, Orders.CONFIRMED);
+
+        when(orderMapper.countGroupByStatus(begin, null)).thenReturn(Arrays.asList(
+                new OrderStatusCountDTO(Orders.TO_BE_CONFIRMED, 2),
+                new OrderStatusCountDTO(Orders.COMPLETED, 5)));
+        when(orderMapper.countGroupByStatus(null, statuses)).thenReturn(Collections.singletonList(
+                new OrderStatusCountDTO(Orders.CONFIRMED, 3)));
+
+        Map<Integer, Integer> today = orderStatusCountService.countByStatus(begin, null);
+        assertEquals(2, today.get(Orders.TO_BE_CONFIRMED));
+        assertEquals(5, today.get(Orders.COMPLETED));
+        // 没有订单的状态不在结果中
+        assertFalse(today.containsKey(Orders.CANCELLED));
+
+        // 状态不同的查询分别缓存
+        Map<Integer, Integer> active = orderStatusCountService.countByStatus(null, statuses);
+        assertEquals(Collections.singletonMap(Orders.CONFIRMED, 3), active);
+
+        // 缓存有效期内不再查询数据库
+        orderStatusCountService.countByStatus(begin, null);
+        orderStatusCountService.countByStatus(null, statuses);
+        verify(orderMapper, times(1)).countGroupByStatus(begin, null);
+        verify(orderMapper, times(1)).countGroupByStatus(null, statuses);
+    }
+}
@@ -0,0 +1,126 @@
+package com.sky.service.impl;
+
+import com.sky.constant.MessageConstant;
+import com.sky.exception.ReportBusinessException;
+import com.sky.service.ReportService;
+import com.sky.vo.ReportExportJobVO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReportExportServiceImplTest {
+
+    @Mock
+    private ReportService reportService;
+
+    @Mock
+    private RedisTemplate redisTemplate;
+
+    @Mock
+    private RedisTemplate<String, byte[]> byteArrayRedisTemplate;
+
+    @Mock
+    private ThreadPoolTaskExecutor reportExportExecutor;
+
+    @Mock
+    private ValueOperations valueOperations;
+
+    @InjectMocks
+    private ReportExportServiceImpl reportExportService;
+
+
+    @Test
+    void dateRangeIsValidated() {
+        LocalDate begin = LocalDate.of(2024, 1, 1);
+
+        ReportBusinessException reversed = assertThrows(ReportBusinessException.class,
+                () -> reportExportService.checkDateRange(begin, begin.minusDays(1)));
+        assertEquals(MessageConstant.REPORT_DATE_RANGE_ERROR, reversed.getMessage());
+
+        ReportBusinessException tooLong = assertThrows(ReportBusinessException.class,
+                () -> reportExportService.checkDateRange(begin, begin.plusDays(366)));
+        assertEquals(MessageConstant.REPORT_DATE_RANGE_TOO_LONG, tooLong.getMessage());
+
+        reportExportService.checkDateRange(begin, begin.plusDays(365));
+    }
+
+    @Test
+    void failedExportHidesExceptionMessage() throws IOException {
+        LocalDate today = LocalDate.now();
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(anyString(), any(), anyLong(), any(TimeUnit.class))).thenReturn(true);
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(reportExportExecutor).execute(any(Runnable.class));
+        doThrow(new IOException("template.xlsx not found"))
+                .when(reportService).exportBusinessData(eq(today), eq(today), any(OutputStream.class));
+
+        reportExportService.submit(today, today);
+
+        ArgumentCaptor<ReportExportJobVO> captor = ArgumentCaptor.forClass(ReportExportJobVO.class);
+        verify(valueOperations, atLeastOnce()).set(anyString(), captor.capture(), anyLong(), any(TimeUnit.class));
+
+        List<ReportExportJobVO> saved = captor.getAllValues();
+        ReportExportJobVO job = saved.get(saved.size() - 1);
+        assertEquals(ReportExportJobVO.FAILED, job.getStatus());
+        assertEquals(MessageConstant.REPORT_EXPORT_FAILED, job.getMessage());
+    }
+
+    @Test
+    void jobLeftRunningByDeadNodeIsReportedAsFailed() {
+        ReportExportJobVO job = ReportExportJobVO.builder()
+                .jobId("1")
+                .status(ReportExportJobVO.RUNNING)
+                .createTime(LocalDateTime.now().minusMinutes(20))
+                .startTime(LocalDateTime.now().minusMinutes(15))
+                .build();
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get("report_export_job_1")).thenReturn(job);
+
+        ReportExportJobVO result = reportExportService.getJob("1");
+
+        assertEquals(ReportExportJobVO.FAILED, result.getStatus());
+        assertEquals(MessageConstant.REPORT_EXPORT_FAILED, result.getMessage());
+    }
+
+    @Test
+    void runningJobWithinTimeoutIsUnchanged() {
+        ReportExportJobVO job = ReportExportJobVO.builder()
+                .jobId("1")
+                .status(ReportExportJobVO.RUNNING)
+                .createTime(LocalDateTime.now().minusMinutes(1))
+                .startTime(LocalDateTime.now())
+                .build();
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get("report_export_job_1")).thenReturn(job);
+
+        assertEquals(ReportExportJobVO.RUNNING, reportExportService.getJob("1").getStatus());
+    }
+}
@@ -0,0 +1,102 @@
+package com.sky.task;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class KeysetBatchProcessorTest {
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @InjectMocks
+    private KeysetBatchProcessor keysetBatchProcessor;
+
+    // 满足条件的数据（按id升序）
+    private final List<Long> rows = new ArrayList<>();
+
+    // 每批处理的id
+    private final List<List<Long>> chunks = new ArrayList<>();
+
+
+    @BeforeEach
+    void setUp() {
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+    }
+
+    @Test
+    void processesAllChunksAndClearsCheckpoint() {
+        rows.addAll(Arrays.asList(1L, 2L, 3L, 4L, 5L));
+
+        int total = process();
+
+        assertEquals(5, total);
+        assertEquals(Arrays.asList(Arrays.asList(1L, 2L), Arrays.asList(3L, 4L), Arrays.asList(5L)), chunks);
+
+        InOrder order = inOrder(valueOperations, stringRedisTemplate);
+        order.verify(valueOperations).set("batch_checkpoint_job", "2", 24, TimeUnit.HOURS);
+        order.verify(valueOperations).set("batch_checkpoint_job", "4", 24, TimeUnit.HOURS);
+        order.verify(valueOperations).set("batch_checkpoint_job", "5", 24, TimeUnit.HOURS);
+        order.verify(stringRedisTemplate).delete("batch_checkpoint_job");
+    }
+
+    @Test
+    void resumedRunRescansFromStart() {
+        // 上次处理到id 3后中途退出；id 2是之后才满足条件的数据
+        when(valueOperations.get("batch_checkpoint_job")).thenReturn("3");
+        rows.addAll(Arrays.asList(2L, 4L, 5L));
+
+        int total = process();
+
+        // 先从进度继续，再从头补充处理（已处理过的数据由writer的状态条件过滤，这里重复计数）
+        assertEquals(Arrays.asList(Arrays.asList(4L, 5L), Arrays.asList(2L, 4L), Arrays.asList(5L)), chunks);
+        assertEquals(5, total);
+        verify(stringRedisTemplate).delete("batch_checkpoint_job");
+    }
+
+    @Test
+    void emptyRunOnlyClearsCheckpoint() {
+        int total = process();
+
+        assertEquals(0, total);
+        assertEquals(0, chunks.size());
+        verify(valueOperations, never()).set(anyString(), anyString(), anyLong(), eq(TimeUnit.HOURS));
+        verify(stringRedisTemplate).delete("batch_checkpoint_job");
+    }
+
+
+    private int process() {
+        return keysetBatchProcessor.process("job", 2,
+                (lastId, limit) -> rows.stream().filter(id -> id > lastId).limit(limit).collect(Collectors.toList()),
+                id -> id,
+                ids -> {
+                    chunks.add(ids);
+                    return ids.size();
+                });
+    }
+}